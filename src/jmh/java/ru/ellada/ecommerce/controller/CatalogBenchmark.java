@@ -0,0 +1,87 @@
+package ru.ellada.ecommerce.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.ellada.ecommerce.domain.Candle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks of the catalog filtering and search over a synthetic catalog.
+ * The filters follow the repository queries of the menu and search pages, the result is paged and
+ * the pagination is computed the way the controllers do, so the numbers show the cost of a page model
+ * without the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmark {
+    private static final String[] NOTES = {"vanilla", "lavender", "sandalwood", "cedar", "rose", "jasmine", "amber"};
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private List<Candle> catalog;
+
+    private final Pageable pageable = PageRequest.of(3, 12);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(catalogSize);
+        for (long id = 1; id <= catalogSize; id++) {
+            Candle candle = new Candle();
+            candle.setId(id);
+            candle.setCandleTitle("Candle " + NOTES[random.nextInt(NOTES.length)] + " " + id);
+            candle.setFragranceNotes(NOTES[random.nextInt(NOTES.length)] + ", " + NOTES[random.nextInt(NOTES.length)]);
+            candle.setPrice(500 + random.nextInt(4500));
+            candle.setVolume(100 + random.nextInt(400));
+            catalog.add(candle);
+        }
+    }
+
+    @Benchmark
+    public int[] menuPage() {
+        return render(candle -> true);
+    }
+
+    @Benchmark
+    public int[] filterByPrice() {
+        return render(candle -> candle.getPrice() >= 1000 && candle.getPrice() <= 2000);
+    }
+
+    @Benchmark
+    public int[] searchByTitle() {
+        return render(candle -> candle.getCandleTitle().contains("lavender") ||
+                candle.getFragranceNotes().contains("lavender"));
+    }
+
+    private int[] render(Predicate<Candle> filter) {
+        List<Candle> matched = catalog.stream().filter(filter).collect(Collectors.toList());
+        int from = (int) Math.min(pageable.getOffset(), matched.size());
+        int to = Math.min(from + pageable.getPageSize(), matched.size());
+        Page<Candle> page = new PageImpl<>(matched.subList(from, to), pageable, matched.size());
+        return ControllerUtils.computePagination(page);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.ellada.ecommerce.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import ru.ellada.ecommerce.domain.User;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link ControllerUtils} methods called on every page render and form submit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerUtilsBenchmark {
+    private BindingResult bindingResult;
+
+    @Setup
+    public void setUp() {
+        bindingResult = new BeanPropertyBindingResult(new User(), "user");
+        bindingResult.rejectValue("username", "NotBlank", "Username cannot be empty");
+        bindingResult.rejectValue("email", "Email", "Incorrect email");
+        bindingResult.rejectValue("password", "Size", "Password must be at least 6 characters");
+    }
+
+    @Benchmark
+    public int[] computePaginationFirstPage(Pages pages) {
+        return ControllerUtils.computePagination(pages.firstPage);
+    }
+
+    @Benchmark
+    public int[] computePaginationMiddlePage(Pages pages) {
+        return ControllerUtils.computePagination(pages.middlePage);
+    }
+
+    @Benchmark
+    public Map<String, String> getErrors() {
+        return ControllerUtils.getErrors(bindingResult);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pages {
+        /**
+         * Number of pages in the catalog, up to 7 pages all numbers are rendered.
+         */
+        @Param({"5", "100", "10000"})
+        private int totalPages;
+
+        private Page<Object> firstPage;
+
+        private Page<Object> middlePage;
+
+        @Setup
+        public void setUp() {
+            firstPage = page(0);
+            middlePage = page(totalPages / 2);
+        }
+
+        private Page<Object> page(int number) {
+            return new PageImpl<>(Collections.singletonList(new Object()), PageRequest.of(number, 1), totalPages);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.ellada.ecommerce.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.extras.springsecurity5.dialect.SpringSecurityDialect;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.ellada.ecommerce.config.FragmentCacheDialect;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.service.Impl.FragmentCache;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of rendering {@code menu.html} with a full page of candles for an anonymous user.
+ * Templates are cached like in production, so only the rendering itself is measured,
+ * with and without the cache of the rendered fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuTemplateBenchmark {
+    @Param({"false", "true"})
+    public boolean fragmentCache;
+
+    private SpringTemplateEngine templateEngine;
+
+    private MockServletContext servletContext;
+
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new SpringSecurityDialect());
+        templateEngine.addDialect(new FragmentCacheDialect(
+                new FragmentCache(fragmentCache, 10000, new SimpleMeterRegistry())));
+
+        List<Candle> candles = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            Candle candle = new Candle();
+            candle.setId(id);
+            candle.setCandleTitle("Candle " + id);
+            candle.setFilename(id + ".jpg");
+            candle.setPrice(1000 + (int) id * 100);
+            candles.add(candle);
+        }
+        Page<Candle> page = new PageImpl<>(candles, PageRequest.of(4, 12), 1200);
+
+        servletContext = new MockServletContext();
+        variables = new HashMap<>();
+        variables.put("page", page);
+        variables.put("pagination", ControllerUtils.computePagination(page));
+        variables.put("url", "/menu");
+        variables.put("minCandlePrice", BigDecimal.valueOf(500));
+        variables.put("maxCandlePrice", BigDecimal.valueOf(5000));
+    }
+
+    @Benchmark
+    public String renderMenu() {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/menu");
+        WebContext context = new WebContext(request, new MockHttpServletResponse(), servletContext,
+                Locale.getDefault(), variables);
+        return templateEngine.process("menu", context);
+    }
+}
@@ -0,0 +1,203 @@
+package ru.ellada.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput, latency percentiles and error rates of the load test, in total and per journey step.
+ * The report is written as JSON, a saved report is used as the baseline of the next runs.
+ */
+class LoadReport {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Latency changes below this value are noise and are not reported as regressions.
+     */
+    private static final double MIN_LATENCY_REGRESSION_MS = 5;
+
+    /**
+     * Error rate may grow by this share of the requests before it is reported as a regression.
+     */
+    private static final double MAX_ERROR_RATE_REGRESSION = 0.01;
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    private final Summary summary;
+
+    LoadReport(int concurrency) {
+        this.summary = new Summary();
+        this.summary.concurrency = concurrency;
+    }
+
+    private LoadReport(Summary summary) {
+        this.summary = summary;
+    }
+
+    void record(String step, long elapsedNanos, boolean error) {
+        samples.computeIfAbsent(step, name -> new Samples()).add(elapsedNanos, error);
+    }
+
+    void finish(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Samples total = new Samples();
+        Map<String, Step> steps = new TreeMap<>();
+        samples.forEach((name, stepSamples) -> {
+            steps.put(name, stepSamples.summarize(seconds));
+            total.addAll(stepSamples);
+        });
+        summary.durationSeconds = seconds;
+        summary.total = total.summarize(seconds);
+        summary.steps = steps;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%nLoad test: %d virtual users, %.1f s%n", summary.concurrency, summary.durationSeconds);
+        out.printf("%-12s %9s %8s %9s %9s %9s %9s %9s%n",
+                "step", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summary.steps.forEach((name, step) -> print(out, name, step));
+        print(out, "total", summary.total);
+    }
+
+    private static void print(PrintStream out, String name, Step step) {
+        out.printf("%-12s %9d %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, step.requests, step.errorRate * 100,
+                step.throughput, step.p50Ms, step.p95Ms, step.p99Ms, step.maxMs);
+    }
+
+    /**
+     * Compares the report with the baseline.
+     *
+     * @param baseline  report of the baseline run.
+     * @param tolerance allowed relative drop of the throughput and growth of the p95 latency.
+     * @return found regressions, empty if there are none.
+     */
+    List<String> compare(LoadReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        Step before = baseline.summary.total;
+        Step after = summary.total;
+        if (after.throughput < before.throughput * (1 - tolerance)) {
+            regressions.add(String.format("throughput %.1f req/s, baseline %.1f req/s", after.throughput,
+                    before.throughput));
+        }
+        baseline.summary.steps.forEach((name, stepBefore) -> {
+            Step stepAfter = summary.steps.get(name);
+            if (stepAfter == null) {
+                return;
+            }
+            if (stepAfter.p95Ms > stepBefore.p95Ms * (1 + tolerance) &&
+                    stepAfter.p95Ms - stepBefore.p95Ms > MIN_LATENCY_REGRESSION_MS) {
+                regressions.add(String.format("%s p95 %.1f ms, baseline %.1f ms", name, stepAfter.p95Ms,
+                        stepBefore.p95Ms));
+            }
+            if (stepAfter.errorRate > stepBefore.errorRate + MAX_ERROR_RATE_REGRESSION) {
+                regressions.add(String.format("%s error rate %.2f%%, baseline %.2f%%", name, stepAfter.errorRate * 100,
+                        stepBefore.errorRate * 100));
+            }
+        });
+        return regressions;
+    }
+
+    void write(Path path) throws IOException {
+        MAPPER.writeValue(path.toFile(), summary);
+    }
+
+    static LoadReport read(Path path) throws IOException {
+        return new LoadReport(MAPPER.readValue(path.toFile(), Summary.class));
+    }
+
+    /**
+     * Latencies of one step, appended by the virtual users.
+     */
+    private static class Samples {
+        private long[] latencies = new long[1024];
+
+        private int size;
+
+        private int errors;
+
+        synchronized void add(long elapsedNanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = elapsedNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i], false);
+            }
+            errors += other.errors;
+        }
+
+        synchronized Step summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            Step step = new Step();
+            step.requests = size;
+            step.errorRate = size == 0 ? 0 : (double) errors / size;
+            step.throughput = size / seconds;
+            step.p50Ms = percentile(sorted, 0.50);
+            step.p95Ms = percentile(sorted, 0.95);
+            step.p99Ms = percentile(sorted, 0.99);
+            step.maxMs = size == 0 ? 0 : toMillis(sorted[size - 1]);
+            return step;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return toMillis(sorted[Math.max(0, index)]);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * JSON form of the report.
+     */
+    static class Summary {
+        public int concurrency;
+
+        public double durationSeconds;
+
+        public Step total;
+
+        public Map<String, Step> steps;
+    }
+
+    /**
+     * JSON form of the numbers of one step.
+     */
+    static class Step {
+        public long requests;
+
+        public double errorRate;
+
+        public double throughput;
+
+        public double p50Ms;
+
+        public double p95Ms;
+
+        public double p99Ms;
+
+        public double maxMs;
+    }
+}
@@ -0,0 +1,194 @@
+package ru.ellada.ecommerce.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.ellada.ecommerce.ServingWebContentApplication;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP load test of the store.
+ * Boots the application against an embedded PostgreSQL, or against the database given by {@code --jdbc-url},
+ * seeds the catalog and the customers, and replays the browse and checkout journeys of {@link VirtualUser}
+ * with the given concurrency. The report is printed, written as JSON and compared with the baseline.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--concurrency=20 --duration-seconds=60"
+ * </pre>
+ *
+ * Options, all optional:
+ * <ul>
+ *     <li>{@code --base-url} - run against an already started application, nothing is booted or seeded;</li>
+ *     <li>{@code --jdbc-url}, {@code --jdbc-username}, {@code --jdbc-password} - local database instead of the embedded one;</li>
+ *     <li>{@code --profiles} - comma separated profiles of the booted application, for example {@code production};</li>
+ *     <li>{@code --concurrency} - number of virtual users, 10 by default;</li>
+ *     <li>{@code --warmup-seconds} and {@code --duration-seconds} - 10 and 30 by default;</li>
+ *     <li>{@code --buyer-ratio} - share of the virtual users going through the checkout, 0.2 by default;</li>
+ *     <li>{@code --catalog-size} - number of the seeded candles, 1000 by default;</li>
+ *     <li>{@code --result} - JSON report, {@code target/loadtest-result.json} by default;</li>
+ *     <li>{@code --baseline} - baseline report, {@code src/loadtest/baseline.json} by default;</li>
+ *     <li>{@code --tolerance} - allowed relative regression of throughput and p95 latency, 0.2 by default;</li>
+ *     <li>{@code --update-baseline=true} - writes the result as the new baseline.</li>
+ * </ul>
+ * The process exits with status 1 when a regression against the baseline is found.
+ */
+public class LoadTest {
+    static final String PASSWORD = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "10"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration-seconds", "30"));
+        double buyerRatio = Double.parseDouble(options.getOrDefault("buyer-ratio", "0.2"));
+        int catalogSize = Integer.parseInt(options.getOrDefault("catalog-size", "1000"));
+        Path result = Paths.get(options.getOrDefault("result", "target/loadtest-result.json"));
+        Path baseline = Paths.get(options.getOrDefault("baseline", "src/loadtest/baseline.json"));
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.2"));
+
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("base-url");
+        try {
+            if (baseUrl == null) {
+                Map<String, Object> properties = new HashMap<>();
+                if (options.containsKey("jdbc-url")) {
+                    properties.put("spring.datasource.url", options.get("jdbc-url"));
+                    properties.put("spring.datasource.username", options.getOrDefault("jdbc-username", "postgres"));
+                    properties.put("spring.datasource.password", options.getOrDefault("jdbc-password", "postgres"));
+                } else {
+                    postgres = EmbeddedPostgres.builder().start();
+                    properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+                    properties.put("spring.datasource.username", "postgres");
+                    properties.put("spring.datasource.password", "postgres");
+                }
+                properties.put("server.port", 0);
+                properties.put("spring.datasource.hikari.maximum-pool-size", Math.max(10, concurrency / 2));
+
+                SpringApplication application = new SpringApplication(ServingWebContentApplication.class);
+                List<String> profiles = new ArrayList<>();
+                for (String profile : options.getOrDefault("profiles", "").split(",")) {
+                    if (!profile.isBlank()) {
+                        profiles.add(profile.trim());
+                    }
+                }
+                profiles.add("loadtest");
+                application.setAdditionalProfiles(profiles.toArray(new String[0]));
+                context = application.run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+
+                seed(context.getBean(DataSource.class), catalogSize, concurrency);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                baseUrl = "http://localhost:" + port;
+            }
+
+            LoadReport report = run(baseUrl, concurrency, warmupSeconds, durationSeconds, buyerRatio, catalogSize);
+            report.print(System.out);
+            Files.createDirectories(result.toAbsolutePath().getParent());
+            report.write(result);
+            System.out.println("Report is saved to " + result.toAbsolutePath());
+
+            if (Boolean.parseBoolean(options.getOrDefault("update-baseline", "false"))) {
+                report.write(baseline);
+                System.out.println("Baseline is updated: " + baseline.toAbsolutePath());
+            } else if (Files.exists(baseline)) {
+                List<String> regressions = report.compare(LoadReport.read(baseline), tolerance);
+                regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+                if (!regressions.isEmpty()) {
+                    System.exit(1);
+                }
+                System.out.println("No regressions against " + baseline.toAbsolutePath());
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static LoadReport run(String baseUrl, int concurrency, int warmupSeconds, int durationSeconds,
+                                  double buyerRatio, int catalogSize) throws Exception {
+        LoadReport report = new LoadReport(concurrency);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> users = new ArrayList<>();
+            int buyers = (int) Math.round(concurrency * buyerRatio);
+            for (int i = 0; i < concurrency; i++) {
+                VirtualUser user = new VirtualUser(baseUrl, i < buyers ? "loadtest-" + i : null, catalogSize,
+                        new Random(i), report, measureFrom);
+                users.add(executor.submit(() -> user.runUntil(deadline)));
+            }
+            for (Future<?> user : users) {
+                user.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report.finish(System.nanoTime() - measureFrom);
+        return report;
+    }
+
+    private static void seed(DataSource dataSource, int catalogSize, int customers) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String[] notes = {"лаванда", "кедр", "апельсин", "ваниль", "корица", "сандал", "роза"};
+
+        List<Object[]> candles = new ArrayList<>();
+        for (int id = 1001; id <= 1000 + catalogSize; id++) {
+            String note = notes[id % notes.length];
+            candles.add(new Object[]{id, "Свеча " + note + " " + id, note + ", " + notes[(id / 7) % notes.length],
+                    "Нагрузочный тест", "soft_dreams.jpg", 500 + id % 4500, 180, 900 + id % 4500, 300});
+        }
+        jdbcTemplate.batchUpdate("insert into candle (id, candle_title, fragrance_notes, description, filename, " +
+                "price, volume, another_price, another_volume) values (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                "on conflict (id) do nothing", candles);
+
+        String password = "{bcrypt}" + new BCryptPasswordEncoder(10).encode(PASSWORD);
+        for (int i = 0; i < customers; i++) {
+            String username = "loadtest-" + i;
+            int inserted = jdbcTemplate.update("insert into usr (id, active, email, password, username) " +
+                            "select nextval('hibernate_sequence'), true, ?, ?, ? " +
+                            "where not exists (select 1 from usr where username = ?)",
+                    username + "@loadtest.local", password, username, username);
+            if (inserted > 0) {
+                jdbcTemplate.update("insert into user_role (user_id, roles) select id, 'USER' from usr where username = ?",
+                        username);
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected --name=value");
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,167 @@
+package ru.ellada.ecommerce.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Customer replaying the scripted journeys until the deadline.
+ * An anonymous user browses the home page, the menu with its pages and the price filter, the search
+ * and the product pages. A buyer logs in once and then adds a product to the cart, opens the cart
+ * and the order form and places the order.
+ */
+class VirtualUser {
+    private static final String[] SEARCH_WORDS = {"лаванда", "кедр", "ваниль", "роза", "свеча"};
+
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("name=\"idempotencyKey\" value=\"([^\"]+)\"");
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+
+    private final String username;
+
+    private final int catalogSize;
+
+    private final Random random;
+
+    private final LoadReport report;
+
+    /**
+     * Samples started before this moment are the warmup and are not recorded.
+     */
+    private final long measureFrom;
+
+    private final HttpClient client;
+
+    private boolean loggedIn;
+
+    VirtualUser(String baseUrl, String username, int catalogSize, Random random, LoadReport report, long measureFrom) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.catalogSize = catalogSize;
+        this.random = random;
+        this.report = report;
+        this.measureFrom = measureFrom;
+        // Browsers never try the h2c upgrade of a plain text server, so neither do the users
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    void runUntil(long deadline) {
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            if (username == null) {
+                browse();
+            } else {
+                buy();
+            }
+        }
+    }
+
+    private void browse() {
+        get("home", "/");
+        get("menu", "/menu");
+        get("menu-page", "/menu?page=" + random.nextInt(Math.max(1, catalogSize / 12)) + "&size=12");
+        get("menu-filter", "/menu/search?startingPrice=1000&endingPrice=2000");
+        get("search", "/search?filter=" + encode(SEARCH_WORDS[random.nextInt(SEARCH_WORDS.length)]));
+        get("product", "/product/" + candleId());
+    }
+
+    private void buy() {
+        if (!loggedIn) {
+            Map<String, String> form = new LinkedHashMap<>();
+            form.put("username", username);
+            form.put("password", LoadTest.PASSWORD);
+            loggedIn = post("login", "/login", form) != null;
+            if (!loggedIn) {
+                return;
+            }
+        }
+        long candleId = candleId();
+        get("product", "/product/" + candleId);
+        post("cart-add", "/cart/add", Map.of("add", String.valueOf(candleId)));
+        get("cart", "/cart");
+
+        HttpResponse<String> orderForm = get("order-form", "/order");
+        if (orderForm == null) {
+            return;
+        }
+        Matcher matcher = IDEMPOTENCY_KEY.matcher(orderForm.body());
+        Map<String, String> order = new LinkedHashMap<>();
+        order.put("firstName", "Load");
+        order.put("lastName", "Test");
+        order.put("city", "Moscow");
+        order.put("address", "Tverskaya 1");
+        order.put("postIndex", "125009");
+        order.put("phoneNumber", "+79990000000");
+        order.put("email", username + "@loadtest.local");
+        order.put("totalPrice", "1000");
+        order.put("idempotencyKey", matcher.find() ? matcher.group(1) : "");
+        post("order", "/order", order);
+    }
+
+    private HttpResponse<String> get(String step, String path) {
+        return send(step, HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build());
+    }
+
+    private HttpResponse<String> post(String step, String path, Map<String, String> form) {
+        String body = form.entrySet().stream()
+                .map(entry -> encode(entry.getKey()) + "=" + encode(entry.getValue()))
+                .collect(Collectors.joining("&"));
+        return send(step, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    /**
+     * Sends the request following the redirects. A response is an error when its status is not 2xx,
+     * or when a logged in customer is sent back to the login page.
+     */
+    private HttpResponse<String> send(String step, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        boolean error;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            error = response.statusCode() >= 300 || (username != null && response.uri().getPath().equals("/login"));
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (start >= measureFrom) {
+            report.record(step, System.nanoTime() - start, error);
+        }
+        if (error && username != null && response != null && response.uri().getPath().equals("/login")) {
+            loggedIn = false;
+        }
+        return error ? null : response;
+    }
+
+    private long candleId() {
+        return 1001 + random.nextInt(catalogSize);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,11 +1,16 @@
 package ru.ellada.ecommerce.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.ellada.ecommerce.service.Impl.BoundedPasswordEncoder;
+import ru.ellada.ecommerce.service.Impl.LegacyPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
 
 /**
  * Encoder configuration class.
@@ -13,19 +18,58 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  *
  * @author Govorukhin Dmitriy
  * @version 1.0
+ * @see BoundedPasswordEncoder
+ * @see LegacyPasswordEncoder
  */
 @Configuration
 public class EncryptionConfig {
     /**
-     * Implementation of PasswordEncoder that uses the BCrypt strong hashing function.
+     * BCrypt strength, the log rounds to use, between 4 and 31.
+     */
+    @Value("${security.password.bcrypt-strength:10}")
+    private int strength;
+
+    /**
+     * Number of password hashing threads.
+     */
+    @Value("${security.password.hash-threads:2}")
+    private int threads;
+
+    /**
+     * Maximum number of hashes waiting for a hashing thread.
+     */
+    @Value("${security.password.hash-queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * How long a login or registration waits for the hash, in milliseconds.
+     */
+    @Value("${security.password.hash-timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * Password encoder which stores new passwords as {@code {bcrypt}} hashes with the configured strength
+     * and still matches unprefixed hashes and plain text passwords stored before.
+     * Hashes run on a bounded pool of threads.
+     *
+     * @return password encoder.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder getPasswordEncoder() {
+        return new BoundedPasswordEncoder(createDelegatingPasswordEncoder(strength), threads, queueCapacity,
+                Duration.ofMillis(timeoutMs));
+    }
+
+    /**
+     * Creates the password encoder which chooses the hash by the prefix of the stored password.
      *
-     * @return strength the log rounds to use, between 4 and 31.
+     * @param strength BCrypt strength of new hashes.
+     * @return password encoder.
      */
-    @Bean
-    public PasswordEncoder getPasswordEncoder() {
-//        return new BCryptPasswordEncoder(8);
-//        return new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2A);
-//        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
-        return NoOpPasswordEncoder.getInstance();
+    public static PasswordEncoder createDelegatingPasswordEncoder(int strength) {
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new LegacyPasswordEncoder());
+        return passwordEncoder;
     }
-}
\ No newline at end of file
+}
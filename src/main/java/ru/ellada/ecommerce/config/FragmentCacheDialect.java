@@ -0,0 +1,161 @@
+package ru.ellada.ecommerce.config;
+
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.dialect.IExpressionObjectDialect;
+import org.thymeleaf.expression.IExpressionObjectFactory;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.templatemode.TemplateMode;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.service.Impl.FragmentCache;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thymeleaf dialect adding the {@code #cached} expression object, which renders a fragment once
+ * and then returns it from the {@link FragmentCache}:
+ *
+ * <pre>
+ * &lt;th:block th:utext="${#cached.layout('parts/common', 'footer')}"&gt;&lt;/th:block&gt;
+ * &lt;th:block th:utext="${#cached.candle('parts/card', 'menuCard', candle)}"&gt;&lt;/th:block&gt;
+ * </pre>
+ *
+ * A layout fragment must not use any model attribute or the user, a candle fragment may use only
+ * the {@code candle} variable. Links of the cached fragments are rendered without the session id,
+ * so a fragment never carries the session of the user who rendered it first.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see FragmentCache
+ */
+public class FragmentCacheDialect extends AbstractDialect implements IExpressionObjectDialect {
+    private static final String EXPRESSION_OBJECT_NAME = "cached";
+
+    private final FragmentCache fragmentCache;
+
+    /**
+     * Constructor for initializing the cache.
+     *
+     * @param fragmentCache cache of the rendered fragments.
+     */
+    public FragmentCacheDialect(FragmentCache fragmentCache) {
+        super("fragmentCache");
+        this.fragmentCache = fragmentCache;
+    }
+
+    @Override
+    public IExpressionObjectFactory getExpressionObjectFactory() {
+        return new IExpressionObjectFactory() {
+            @Override
+            public Set<String> getAllExpressionObjectNames() {
+                return Collections.singleton(EXPRESSION_OBJECT_NAME);
+            }
+
+            @Override
+            public Object buildObject(IExpressionContext context, String expressionObjectName) {
+                return new CachedFragments(context, fragmentCache);
+            }
+
+            @Override
+            public boolean isCacheable(String expressionObjectName) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * The {@code #cached} expression object of one template execution.
+     */
+    public static class CachedFragments {
+        private final IExpressionContext context;
+
+        private final FragmentCache fragmentCache;
+
+        CachedFragments(IExpressionContext context, FragmentCache fragmentCache) {
+            this.context = context;
+            this.fragmentCache = fragmentCache;
+        }
+
+        /**
+         * Returns a layout fragment which is the same for all users.
+         *
+         * @param template template of the fragment.
+         * @param fragment name of the fragment.
+         * @return rendered fragment.
+         */
+        public String layout(String template, String fragment) {
+            String key = template + "::" + fragment + "/" + context.getLocale();
+            return fragmentCache.getLayout(key, () -> render(template, fragment, Collections.emptyMap()));
+        }
+
+        /**
+         * Returns a fragment which depends only on the candle, available in it as {@code candle}.
+         *
+         * @param template template of the fragment.
+         * @param fragment name of the fragment.
+         * @param candle   candle to render.
+         * @return rendered fragment.
+         */
+        public String candle(String template, String fragment, Candle candle) {
+            String key = template + "::" + fragment + "/" + context.getLocale() + "/" + candle.getId();
+            return fragmentCache.getCandle(key, () ->
+                    render(template, fragment, Collections.singletonMap("candle", candle)));
+        }
+
+        private String render(String template, String fragment, Map<String, Object> fragmentVariables) {
+            Map<String, Object> variables = new HashMap<>(fragmentVariables);
+            Object evaluationContext =
+                    context.getVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME);
+            if (evaluationContext != null) {
+                variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                        evaluationContext);
+            }
+
+            IContext fragmentContext;
+            if (context instanceof IWebContext) {
+                IWebContext webContext = (IWebContext) context;
+                fragmentContext = new WebContext(webContext.getRequest(),
+                        new UnencodedUrlResponse(webContext.getResponse()), webContext.getServletContext(),
+                        context.getLocale(), variables);
+            } else {
+                fragmentContext = new Context(context.getLocale(), variables);
+            }
+
+            StringWriter writer = new StringWriter();
+            context.getConfiguration().getTemplateManager().parseAndProcess(
+                    new TemplateSpec(template, Collections.singleton(fragment), TemplateMode.HTML, null),
+                    fragmentContext, writer);
+            return writer.toString();
+        }
+    }
+
+    /**
+     * Response which does not add the session id to the links.
+     */
+    private static class UnencodedUrlResponse extends HttpServletResponseWrapper {
+        private UnencodedUrlResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+
+        @Override
+        public String encodeRedirectURL(String url) {
+            return url;
+        }
+    }
+}
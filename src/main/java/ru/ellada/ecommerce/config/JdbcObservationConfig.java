@@ -0,0 +1,47 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.ellada.ecommerce.service.Impl.ObservedDataSource;
+import ru.ellada.ecommerce.service.Impl.SlowQueryRecorder;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC observation configuration class.
+ * Marked with @Configuration annotation - the class is the source of the bean definition.
+ * Every data source of the application is wrapped in {@link ObservedDataSource},
+ * so the executed statements reach the {@link SlowQueryRecorder} and the other statement listeners.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Configuration
+public class JdbcObservationConfig {
+    /**
+     * The method is static, so the post processor is created before the data source
+     * without initializing this configuration.
+     *
+     * @param listeners listeners of the executed statements.
+     * @return post processor wrapping the data sources.
+     */
+    @Bean
+    public static BeanPostProcessor observedDataSourcePostProcessor(
+            ObjectProvider<ObservedDataSource.StatementListener> listeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ObservedDataSource)) {
+                    List<ObservedDataSource.StatementListener> statementListeners =
+                            listeners.orderedStream().collect(Collectors.toList());
+                    return new ObservedDataSource((DataSource) bean, statementListeners);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package ru.ellada.ecommerce.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.Impl.JwtTokenService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter which authenticates requests of the stateless session mode by the access token cookie.
+ * A valid access token is enough, the user is restored from its claims without the database.
+ * When the access token is missing or expired and the refresh token is valid, the user is loaded
+ * through the {@link UserDetailsService} and a new access token is written to the response.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see JwtTokenService
+ * @see JwtLoginSuccessHandler
+ */
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private final JwtTokenService jwtTokenService;
+
+    private final UserDetailsService userDetailsService;
+
+    private final JwtLoginSuccessHandler tokenWriter;
+
+    /**
+     * Constructor for initializing the main variables of the filter.
+     *
+     * @param jwtTokenService    service validating the tokens.
+     * @param userDetailsService service loading the user on refresh.
+     * @param tokenWriter        handler writing the token cookies.
+     */
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, UserDetailsService userDetailsService,
+                                   JwtLoginSuccessHandler tokenWriter) {
+        this.jwtTokenService = jwtTokenService;
+        this.userDetailsService = userDetailsService;
+        this.tokenWriter = tokenWriter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            User user = jwtTokenService.parseAccessToken(cookieValue(request, JwtLoginSuccessHandler.ACCESS_COOKIE));
+
+            if (user == null) {
+                user = refresh(request, response);
+            }
+            if (user != null) {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private User refresh(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = cookieValue(request, JwtLoginSuccessHandler.REFRESH_COOKIE);
+
+        if (refreshToken == null) {
+            return null;
+        }
+        String username = jwtTokenService.parseRefreshToken(refreshToken);
+
+        if (username != null) {
+            try {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (userDetails instanceof User && userDetails.isEnabled()) {
+                    tokenWriter.writeAccessToken(response, (User) userDetails);
+                    return (User) userDetails;
+                }
+            } catch (AuthenticationException e) {
+                log.debug("Refresh of {} is rejected: {}", username, e.getMessage());
+            }
+        }
+        tokenWriter.clearTokens(response);
+        return null;
+    }
+
+    private static String cookieValue(HttpServletRequest request, String name) {
+        Cookie cookie = WebUtils.getCookie(request, name);
+        return cookie == null || cookie.getValue().isEmpty() ? null : cookie.getValue();
+    }
+}
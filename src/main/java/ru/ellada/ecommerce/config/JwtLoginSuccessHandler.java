@@ -0,0 +1,97 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.DefaultRedirectStrategy;
+import org.springframework.security.web.RedirectStrategy;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.Impl.JwtTokenService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Login success handler of the stateless session mode.
+ * Instead of storing the user in the HTTP session it writes the access and refresh tokens
+ * to HttpOnly cookies and redirects to the main page.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see JwtTokenService
+ * @see JwtAuthenticationFilter
+ */
+public class JwtLoginSuccessHandler implements AuthenticationSuccessHandler {
+    /**
+     * Name of the cookie with the access token.
+     */
+    public static final String ACCESS_COOKIE = "access_token";
+
+    /**
+     * Name of the cookie with the refresh token.
+     */
+    public static final String REFRESH_COOKIE = "refresh_token";
+
+    private final JwtTokenService jwtTokenService;
+
+    /**
+     * Whether the cookies are only sent over HTTPS.
+     */
+    private final boolean secureCookie;
+
+    private final RedirectStrategy redirectStrategy = new DefaultRedirectStrategy();
+
+    /**
+     * Constructor for initializing the token service.
+     *
+     * @param jwtTokenService service issuing the tokens.
+     * @param secureCookie    whether the cookies are only sent over HTTPS.
+     */
+    public JwtLoginSuccessHandler(JwtTokenService jwtTokenService, boolean secureCookie) {
+        this.jwtTokenService = jwtTokenService;
+        this.secureCookie = secureCookie;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException {
+        User user = (User) authentication.getPrincipal();
+        writeAccessToken(response, user);
+        writeCookie(response, REFRESH_COOKIE, jwtTokenService.createRefreshToken(user), jwtTokenService.getRefreshTtl());
+        redirectStrategy.sendRedirect(request, response, "/");
+    }
+
+    /**
+     * Writes a new access token of the user to the cookie.
+     *
+     * @param response HTTP response.
+     * @param user     authenticated user.
+     */
+    public void writeAccessToken(HttpServletResponse response, User user) {
+        writeCookie(response, ACCESS_COOKIE, jwtTokenService.createAccessToken(user), jwtTokenService.getAccessTtl());
+    }
+
+    /**
+     * Removes both token cookies.
+     *
+     * @param response HTTP response.
+     */
+    public void clearTokens(HttpServletResponse response) {
+        writeCookie(response, ACCESS_COOKIE, "", Duration.ZERO);
+        writeCookie(response, REFRESH_COOKIE, "", Duration.ZERO);
+    }
+
+    private void writeCookie(HttpServletResponse response, String name, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
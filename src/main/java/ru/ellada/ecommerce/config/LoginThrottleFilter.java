@@ -0,0 +1,64 @@
+package ru.ellada.ecommerce.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.ellada.ecommerce.service.Impl.LoginThrottle;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter which sheds login attempts over the {@link LoginThrottle} limits.
+ * It runs before the form login filter, so a rejected attempt neither loads the user
+ * from the database nor hashes the password. A rejected attempt gets
+ * 429 Too Many Requests with the Retry-After header.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see LoginThrottle
+ * @see WebSecurityConfig
+ */
+@Slf4j
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    private static final RequestMatcher LOGIN_REQUEST = new AntPathRequestMatcher("/login", "POST");
+
+    private final LoginThrottle loginThrottle;
+
+    private final Counter throttledCounter;
+
+    /**
+     * Constructor for initializing the throttle.
+     *
+     * @param loginThrottle throttle of login attempts.
+     * @param meterRegistry registry of the throttled attempts counter.
+     */
+    public LoginThrottleFilter(LoginThrottle loginThrottle, MeterRegistry meterRegistry) {
+        this.loginThrottle = loginThrottle;
+        this.throttledCounter = Counter.builder("login.throttled")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (LOGIN_REQUEST.matches(request)) {
+            long wait = loginThrottle.tryAcquire(request.getParameter("username"), request.getRemoteAddr());
+            if (wait > 0) {
+                throttledCounter.increment();
+                log.debug("Login attempt from {} is throttled", request.getRemoteAddr());
+                response.setHeader("Retry-After", String.valueOf((wait + 999) / 1000));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many login attempts");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
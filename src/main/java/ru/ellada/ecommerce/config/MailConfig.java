@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import ru.ellada.ecommerce.service.Impl.PooledJavaMailSender;
 
 import java.util.Properties;
 
@@ -17,6 +18,7 @@ import java.util.Properties;
  * @version 1.0
  * @see JavaMailSender
  * @see MailProperties
+ * @see PooledJavaMailSender
  */
 @Configuration
 public class MailConfig {
@@ -70,14 +72,27 @@ public class MailConfig {
     @Value("${mail.debug}")
     private String debug;
 
+    /**
+     * Maximum number of idle SMTP connections kept open.
+     */
+    @Value("${mail.pool.max-idle:2}")
+    private int poolMaxIdle;
+
+    /**
+     * Time after which an idle SMTP connection is closed, in milliseconds.
+     */
+    @Value("${mail.pool.idle-timeout-ms:60000}")
+    private long poolIdleTimeoutMs;
+
     /**
      * Returns JavaMailSender bean.
+     * Authenticated SMTP connections are pooled and reused between sends.
      *
      * @return JavaMailSender bean.
      */
     @Bean
     public JavaMailSender getMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        JavaMailSenderImpl mailSender = new PooledJavaMailSender(poolMaxIdle, poolIdleTimeoutMs);
         mailSender.setHost(host);
         mailSender.setPort(port);
         mailSender.setUsername(username);
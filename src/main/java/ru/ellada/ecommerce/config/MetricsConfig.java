@@ -0,0 +1,50 @@
+package ru.ellada.ecommerce.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Metrics configuration class.
+ * Marked with @Configuration annotation - the class is the source of the bean definition.
+ * Request, repository, mail and captcha timers are exported on {@code /actuator/prometheus},
+ * their percentile histograms are enabled in the application properties.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Configuration
+public class MetricsConfig {
+    /**
+     * Adds the {@code handler} tag with the controller class and method to the {@code http.server.requests} timer,
+     * so latency can be compared per controller method.
+     *
+     * @return contributor of the request timer tags.
+     */
+    @Bean
+    public WebMvcTagsContributor handlerTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                if (handler instanceof HandlerMethod) {
+                    HandlerMethod handlerMethod = (HandlerMethod) handler;
+                    return Tags.of("handler", handlerMethod.getBeanType().getSimpleName() + "." +
+                            handlerMethod.getMethod().getName());
+                }
+                return Tags.of("handler", "none");
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+}
@@ -1,11 +1,13 @@
 package ru.ellada.ecommerce.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.*;
+import ru.ellada.ecommerce.service.Impl.FragmentCache;
 
 /**
  * Configuration class of view components, MVC setup.
@@ -27,13 +29,30 @@ public class MvcConfig implements WebMvcConfigurer {
     private String uploadPath;
 
     /**
-     * Returns RestTemplate which offers templates for common scenarios by HTTP method.
+     * Returns the registration of the request logging filter, which runs before all other filters
+     * so the logged duration covers the security checks too.
      *
-     * @return RestTemplate.
+     * @param sampleRate share of the logged requests, from 0 to 1.
+     * @return registration of the {@link SampledRequestLoggingFilter}.
      */
     @Bean
-    public RestTemplate getRestTemplate() {
-        return new RestTemplate();
+    public FilterRegistrationBean<SampledRequestLoggingFilter> sampledRequestLoggingFilter(
+            @Value("${request-log.sample-rate:0}") double sampleRate) {
+        FilterRegistrationBean<SampledRequestLoggingFilter> registration =
+                new FilterRegistrationBean<>(new SampledRequestLoggingFilter(sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Returns the dialect of the cached template fragments, Spring Boot adds it to the template engine.
+     *
+     * @param fragmentCache cache of the rendered fragments.
+     * @return dialect adding the {@code #cached} expression object.
+     */
+    @Bean
+    public FragmentCacheDialect fragmentCacheDialect(FragmentCache fragmentCache) {
+        return new FragmentCacheDialect(fragmentCache);
     }
 
     /**
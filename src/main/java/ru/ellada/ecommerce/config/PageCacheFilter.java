@@ -0,0 +1,136 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.ellada.ecommerce.service.Impl.PageCache;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Filter which serves the catalog pages of anonymous users from the {@link PageCache}.
+ * For an anonymous user these pages depend only on the URL and the catalog, so a rendered page
+ * is stored under its normalized URL and replayed to the next anonymous users, gzip compressed
+ * when the client accepts it. The filter runs after the authentication filters, so logged in
+ * users always get a freshly rendered page.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see PageCache
+ * @see WebSecurityConfig
+ */
+public class PageCacheFilter extends OncePerRequestFilter {
+    private static final RequestMatcher CATALOG_PAGES = new OrRequestMatcher(
+            new AntPathRequestMatcher("/", "GET"),
+            new AntPathRequestMatcher("/menu", "GET"),
+            new AntPathRequestMatcher("/menu/search", "GET"),
+            new AntPathRequestMatcher("/search", "GET"),
+            new AntPathRequestMatcher("/product/*", "GET"));
+
+    private final PageCache pageCache;
+
+    /**
+     * Constructor for initializing the cache.
+     *
+     * @param pageCache cache of the rendered pages.
+     */
+    public PageCacheFilter(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !CATALOG_PAGES.matches(request) || !isAnonymous();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = key(request);
+        PageCache.Page page = pageCache.get(key);
+
+        if (page != null) {
+            write(request, response, page);
+            return;
+        }
+
+        long version = pageCache.getVersion();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            if (isCacheable(wrapper)) {
+                pageCache.put(key, wrapper.getContentType(), wrapper.getContentAsByteArray(), version);
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Builds the key from the path and the sorted query parameters, so the same page requested
+     * with the parameters in another order is cached once.
+     */
+    static String key(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        StringBuilder key = new StringBuilder(path);
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            String[] values = parameter.getValue().clone();
+            Arrays.sort(values);
+            for (String value : values) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken;
+    }
+
+    /**
+     * Only complete HTML pages which do not set cookies are shared between the users.
+     */
+    private static boolean isCacheable(ContentCachingResponseWrapper response) {
+        return response.getStatus() == HttpServletResponse.SC_OK
+                && response.getContentType() != null
+                && response.getContentType().startsWith("text/html")
+                && !response.containsHeader(HttpHeaders.SET_COOKIE)
+                && isAnonymous();
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, PageCache.Page page)
+            throws IOException {
+        response.setContentType(page.getContentType());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body;
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = page.getGzipped();
+        } else {
+            body = page.getBody();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.ellada.ecommerce.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Filter which logs one line per request for a sample of the requests:
+ * method, path, status and duration. Server errors are logged always.
+ * It replaces the debug logging of every request by Spring MVC, which is too costly for production.
+ * The query string is never logged, it carries the password reset tokens, and the secret segments
+ * of the paths, like the activation code, are masked.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see MvcConfig
+ */
+@Slf4j
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+    /**
+     * Paths whose last segment is a secret.
+     */
+    private static final List<String> SECRET_PATHS = List.of("/activate/");
+
+    /**
+     * Share of the logged requests, from 0 to 1.
+     */
+    private final double sampleRate;
+
+    private final DoubleSupplier random;
+
+    /**
+     * Constructor for initializing the sample rate.
+     *
+     * @param sampleRate share of the logged requests, from 0 to 1.
+     */
+    public SampledRequestLoggingFilter(double sampleRate) {
+        this(sampleRate, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    SampledRequestLoggingFilter(double sampleRate, DoubleSupplier random) {
+        this.sampleRate = sampleRate;
+        this.random = random;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!log.isInfoEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            chain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            if (shouldLog(status)) {
+                log.info("{} {} {} {} ms", request.getMethod(), loggedPath(request),
+                        status, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Returns the path of the request without the query string and with the secret segments masked.
+     *
+     * @param request the request.
+     * @return path to log.
+     */
+    static String loggedPath(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String path = uri.substring(request.getContextPath().length());
+        for (String secretPath : SECRET_PATHS) {
+            if (path.startsWith(secretPath) && path.length() > secretPath.length()) {
+                return uri.substring(0, uri.length() - path.length() + secretPath.length()) + "***";
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * Returns whether the request with the given status is logged.
+     *
+     * @param status status of the response.
+     * @return true if the request is logged.
+     */
+    boolean shouldLog(int status) {
+        return status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                || sampleRate > 0 && random.getAsDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration class.
+ * Marked with @Configuration annotation - the class is the source of the bean definition.
+ * The @EnableScheduling annotation enables the methods marked with @Scheduled annotation.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
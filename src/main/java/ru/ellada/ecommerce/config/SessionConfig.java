@@ -0,0 +1,84 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.jdbc.PostgreSqlJdbcIndexedSessionRepositoryCustomizer;
+import ru.ellada.ecommerce.service.Impl.SessionAttributeCodec;
+import ru.ellada.ecommerce.service.Impl.SessionCleanupJob;
+
+/**
+ * Configuration of the shared session store in Postgres.
+ * Active with {@code spring.session.store-type=jdbc}, by default sessions stay in the memory of the node.
+ * Marked with @Configuration annotation - the class is the source of the bean definition.
+ * Only changed attributes are written on each request, each one as its own row,
+ * and expired sessions are removed in batches by the {@link SessionCleanupJob}.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see SessionAttributeCodec
+ * @see SessionCleanupJob
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.session.store-type", havingValue = "jdbc")
+public class SessionConfig implements BeanClassLoaderAware {
+    /**
+     * Size in bytes from which session attributes are deflated.
+     */
+    @Value("${session.attribute.compression-threshold:512}")
+    private int compressionThreshold;
+
+    /**
+     * Number of expired sessions removed in one statement.
+     */
+    @Value("${session.cleanup.batch-size:500}")
+    private int cleanupBatchSize;
+
+    private ClassLoader classLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Writes changed attributes with a single upsert instead of an update followed by an insert.
+     *
+     * @return customizer of the session repository queries.
+     */
+    @Bean
+    public PostgreSqlJdbcIndexedSessionRepositoryCustomizer postgreSqlSessionRepositoryCustomizer() {
+        return new PostgreSqlJdbcIndexedSessionRepositoryCustomizer();
+    }
+
+    /**
+     * Converts the session attributes with the {@link SessionAttributeCodec}.
+     * The bean name is the one the session repository looks up.
+     *
+     * @return conversion service of the session attributes.
+     */
+    @Bean
+    public ConversionService springSessionConversionService() {
+        SessionAttributeCodec codec = new SessionAttributeCodec(compressionThreshold, classLoader);
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, codec::serialize);
+        conversionService.addConverter(byte[].class, Object.class, codec::deserialize);
+        return conversionService;
+    }
+
+    /**
+     * Job removing expired sessions in batches.
+     *
+     * @param jdbcTemplate JDBC template of the session store database.
+     * @return cleanup job.
+     */
+    @Bean
+    public SessionCleanupJob sessionCleanupJob(JdbcTemplate jdbcTemplate) {
+        return new SessionCleanupJob(jdbcTemplate, cleanupBatchSize);
+    }
+}
@@ -1,16 +1,26 @@
 package ru.ellada.ecommerce.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import ru.ellada.ecommerce.service.Impl.JwtTokenService;
+import ru.ellada.ecommerce.service.Impl.LoginThrottle;
+import ru.ellada.ecommerce.service.Impl.PageCache;
 import ru.ellada.ecommerce.service.Impl.UserServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 /**
  * Security configuration class.
@@ -23,6 +33,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * @version 1.0
  * @see UserServiceImpl
  * @see PasswordEncoder
+ * @see LoginThrottleFilter
+ * @see JwtAuthenticationFilter
  */
 @Configuration
 @EnableWebSecurity
@@ -43,6 +55,53 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /**
+     * Throttle of login attempts per username and client address.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     */
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    /**
+     * Registry of the security metrics.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Service issuing the tokens of the stateless session mode.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     */
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    /**
+     * Cache of the catalog pages rendered for anonymous users.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     */
+    @Autowired
+    private PageCache pageCache;
+
+    /**
+     * Whether the catalog pages of anonymous users are served from the page cache.
+     */
+    @Value("${page-cache.enabled:true}")
+    private boolean pageCacheEnabled;
+
+    /**
+     * Session mode: "session" keeps the user in the HTTP session,
+     * "jwt" keeps it in signed cookies so any node can serve any request.
+     */
+    @Value("${security.session.mode:session}")
+    private String sessionMode;
+
+    /**
+     * Whether the token cookies are only sent over HTTPS.
+     */
+    @Value("${security.jwt.secure-cookie:false}")
+    private boolean secureCookie;
+
     /**
      * Setting up users with their roles. Users will be loaded from the database
      * using the implementation of the {@link UserDetailsService} interface methods.
@@ -65,6 +124,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
+                .addFilterBefore(new LoginThrottleFilter(loginThrottle, meterRegistry),
+                        UsernamePasswordAuthenticationFilter.class)
                 .authorizeRequests()
                 .antMatchers("/",
                         "/search",
@@ -75,6 +136,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                         "/activate/*",
                         "/product/*",
                         "/menu/**").permitAll()
+                .antMatchers("/actuator/health",
+                        "/actuator/prometheus").access("hasIpAddress('127.0.0.1') or hasIpAddress('::1')")
                 .antMatchers("/registration",
                         "/reset").anonymous()
                 .anyRequest().authenticated()
@@ -86,5 +149,39 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .logout()
                 .permitAll()
                 .and().csrf().disable();
+
+        if ("jwt".equals(sessionMode)) {
+            configureStateless(http);
+        }
+        if (pageCacheEnabled) {
+            http.addFilterAfter(new PageCacheFilter(pageCache), AnonymousAuthenticationFilter.class);
+        }
+    }
+
+    /**
+     * Switches to the stateless session mode: no HTTP session is created, the user is kept
+     * in the access and refresh token cookies.
+     *
+     * @param http object of the {@link HttpSecurity} for setting access rights to pages.
+     * @throws Exception methods of the {@link HttpSecurity} class.
+     */
+    private void configureStateless(HttpSecurity http) throws Exception {
+        JwtLoginSuccessHandler successHandler = new JwtLoginSuccessHandler(jwtTokenService, secureCookie);
+        SimpleUrlAuthenticationFailureHandler failureHandler = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        failureHandler.setAllowSessionCreation(false);
+
+        http
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                .requestCache().requestCache(new NullRequestCache())
+                .and()
+                .addFilterBefore(new JwtAuthenticationFilter(jwtTokenService, userService, successHandler),
+                        UsernamePasswordAuthenticationFilter.class)
+                .formLogin()
+                .successHandler(successHandler)
+                .failureHandler(failureHandler)
+                .and()
+                .logout()
+                .deleteCookies(JwtLoginSuccessHandler.ACCESS_COOKIE, JwtLoginSuccessHandler.REFRESH_COOKIE);
     }
 }
\ No newline at end of file
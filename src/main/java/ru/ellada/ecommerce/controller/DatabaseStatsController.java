@@ -0,0 +1,111 @@
+package ru.ellada.ecommerce.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.ellada.ecommerce.service.Impl.SlowQueryRecorder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Database statistics controller class.
+ * Returns the Hibernate statistics and the slow statements as JSON.
+ * The @PreAuthorize annotation says the controller is accessible only to users with the admin role.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see SlowQueryRecorder
+ */
+@RestController
+@RequestMapping("/admin/db")
+@PreAuthorize("hasAuthority('ADMIN')")
+public class DatabaseStatsController {
+    /**
+     * Number of the queries with the highest maximum time returned in the statistics.
+     */
+    private static final int TOP_QUERIES = 20;
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    private final Statistics statistics;
+
+    @Autowired
+    public DatabaseStatsController(SlowQueryRecorder slowQueryRecorder, EntityManagerFactory entityManagerFactory) {
+        this.slowQueryRecorder = slowQueryRecorder;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns the Hibernate session factory statistics.
+     * The counters are collected only when {@code hibernate.generate_statistics} is enabled.
+     *
+     * @return statistics counters and the slowest queries.
+     */
+    @GetMapping("/statistics")
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("sessionsOpened", statistics.getSessionOpenCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        result.put("queriesExecuted", statistics.getQueryExecutionCount());
+        result.put("queryMaxTimeMs", statistics.getQueryExecutionMaxTime());
+        result.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("entitiesLoaded", statistics.getEntityLoadCount());
+        result.put("entitiesFetched", statistics.getEntityFetchCount());
+        result.put("collectionsLoaded", statistics.getCollectionLoadCount());
+        result.put("collectionsFetched", statistics.getCollectionFetchCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("queries", topQueries());
+        return result;
+    }
+
+    /**
+     * Returns the last statements which ran longer than the threshold, the latest first.
+     *
+     * @return slow statements.
+     */
+    @GetMapping("/slow-queries")
+    public List<SlowQueryRecorder.SlowQuery> slowQueries() {
+        return slowQueryRecorder.getSlowQueries();
+    }
+
+    /**
+     * Resets the statistics and removes the recorded slow statements.
+     */
+    @DeleteMapping("/statistics")
+    public void reset() {
+        statistics.clear();
+        slowQueryRecorder.clear();
+    }
+
+    private List<Map<String, Object>> topQueries() {
+        return Arrays.stream(statistics.getQueries())
+                .sorted(Comparator.comparingLong(
+                        (String query) -> statistics.getQueryStatistics(query).getExecutionMaxTime()).reversed())
+                .limit(TOP_QUERIES)
+                .map(query -> {
+                    QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("query", query);
+                    item.put("executions", queryStatistics.getExecutionCount());
+                    item.put("avgTimeMs", queryStatistics.getExecutionAvgTime());
+                    item.put("maxTimeMs", queryStatistics.getExecutionMaxTime());
+                    item.put("rows", queryStatistics.getExecutionRowCount());
+                    return item;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -2,20 +2,34 @@ package ru.ellada.ecommerce.controller;
 
 import ru.ellada.ecommerce.domain.Order;
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.Impl.IdempotencyKeyStore;
 import ru.ellada.ecommerce.service.OrderService;
 import ru.ellada.ecommerce.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Customer order controller class.
@@ -43,21 +57,30 @@ public class OrderController {
      */
     private final OrderService orderService;
 
+    /**
+     * Store of checkout idempotency keys.
+     */
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
     /**
      * Constructor for initializing the main variables of the cart controller.
      * The @Autowired annotation will allow Spring to automatically initialize objects.
      *
-     * @param userService  service object for working with customer.
-     * @param orderService service object for working orders.
+     * @param userService         service object for working with customer.
+     * @param orderService        service object for working orders.
+     * @param idempotencyKeyStore store of checkout idempotency keys.
      */
     @Autowired
-    public OrderController(UserService userService, OrderService orderService) {
+    public OrderController(UserService userService, OrderService orderService, IdempotencyKeyStore idempotencyKeyStore) {
         this.userService = userService;
         this.orderService = orderService;
+        this.idempotencyKeyStore = idempotencyKeyStore;
     }
 
     /**
      * Returns the checkout page.
+     * The order form gets a new idempotency key, so a repeated submit of the form
+     * does not create a second order.
      * URL request {"/order"}, method GET.
      *
      * @param userSession request Authenticated customer.
@@ -68,55 +91,69 @@ public class OrderController {
     public String getOrder(@AuthenticationPrincipal User userSession, Model model) {
         User userFromDB = userService.findByUsername(userSession.getUsername());
         model.addAttribute("candles", userFromDB.getCandleList());
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 
         return "order/order";
     }
 
     /**
      * Saves the customers order and redirect to "/finalizeOrder".
+     * The id of the created order is passed to the finalize page as a flash attribute.
+     * A replay with the same idempotency key returns the id of the already created order.
      * URL request {"/order"}, method POST.
      *
-     * @param userSession   requested Authenticated customer.
-     * @param bindingResult errors in validating http request.
-     * @param model         class object {@link Model}.
+     * @param userSession        requested Authenticated customer.
+     * @param idempotencyKey     idempotency key issued with the order form.
+     * @param bindingResult      errors in validating http request.
+     * @param model              class object {@link Model}.
+     * @param redirectAttributes attributes passed to the redirect target.
      * @return order page with model attributes.
      */
     @PostMapping("/order")
     public String postOrder(
             @AuthenticationPrincipal User userSession,
+            @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
             @Valid Order validOrder,
             BindingResult bindingResult,
-            Model model
+            Model model,
+            RedirectAttributes redirectAttributes
     ) {
         User user = userService.findByUsername(userSession.getUsername());
-        Order order = new Order(user);
 
         if (bindingResult.hasErrors()) {
             Map<String, String> errorsMap = ControllerUtils.getErrors(bindingResult);
 
             model.mergeAttributes(errorsMap);
             model.addAttribute("candles", user.getCandleList());
+            model.addAttribute("idempotencyKey", idempotencyKey);
 
             return "order/order";
         } else {
-            order.getCandleList().addAll(user.getCandleList());
-            order.setTotalPrice(validOrder.getTotalPrice());
-            order.setFirstName(validOrder.getFirstName());
-            order.setLastName(validOrder.getLastName());
-            order.setCity(validOrder.getCity());
-            order.setAddress(validOrder.getAddress());
-            order.setPostIndex(validOrder.getPostIndex());
-            order.setEmail(validOrder.getEmail());
-            order.setPhoneNumber(validOrder.getPhoneNumber());
-
-            user.getCandleList().clear();
-
-            orderService.save(order);
-
-            log.debug("User {} id={} made an order: FirstName={}, LastName={}, TotalPrice={}, City={}, " +
-                            "Address={}, PostIndex={}, Email={}, PhoneNumber={}",
-                    user.getUsername(), user.getId(), order.getFirstName(), order.getLastName(), order.getTotalPrice(),
-                    order.getCity(), order.getAddress(), order.getPostIndex(), order.getEmail(), order.getPhoneNumber());
+            String key = StringUtils.hasText(idempotencyKey) ? user.getUsername() + ":" + idempotencyKey : null;
+            Long orderIndex = idempotencyKeyStore.execute(key, () -> {
+                Order order = new Order(user);
+                order.getCandleList().addAll(user.getCandleList());
+                order.setTotalPrice(validOrder.getTotalPrice());
+                order.setFirstName(validOrder.getFirstName());
+                order.setLastName(validOrder.getLastName());
+                order.setCity(validOrder.getCity());
+                order.setAddress(validOrder.getAddress());
+                order.setPostIndex(validOrder.getPostIndex());
+                order.setEmail(validOrder.getEmail());
+                order.setPhoneNumber(validOrder.getPhoneNumber());
+
+                user.getCandleList().clear();
+
+                Order savedOrder = orderService.save(order);
+
+                log.debug("User {} id={} made an order: FirstName={}, LastName={}, TotalPrice={}, City={}, " +
+                                "Address={}, PostIndex={}, Email={}, PhoneNumber={}",
+                        user.getUsername(), user.getId(), order.getFirstName(), order.getLastName(), order.getTotalPrice(),
+                        order.getCity(), order.getAddress(), order.getPostIndex(), order.getEmail(), order.getPhoneNumber());
+
+                return savedOrder.getId();
+            });
+            redirectAttributes.addFlashAttribute("orderIndex", orderIndex);
         }
 
         return "redirect:/finalizeOrder";
@@ -124,6 +161,9 @@ public class OrderController {
 
     /**
      * Returns the finalize order page with order index.
+     * The order index comes from the flash attribute set by {@link #postOrder},
+     * so the page is rendered without querying the orders table.
+     * If the page is opened again without a fresh order, redirects to the customer orders.
      * URL request {"/finalizeOrder"}, method GET.
      *
      * @param model class object {@link Model}.
@@ -131,10 +171,9 @@ public class OrderController {
      */
     @GetMapping("/finalizeOrder")
     public String finalizeOrder(Model model) {
-        List<Order> orderList = orderService.findAll();
-        Order orderIndex = orderList.get(orderList.size() - 1);
-
-        model.addAttribute("orderIndex", orderIndex.getId());
+        if (!model.containsAttribute("orderIndex")) {
+            return "redirect:/userOrders";
+        }
 
         return "order/finalizeOrder";
     }
@@ -157,16 +196,59 @@ public class OrderController {
     }
 
     /**
-     * Returns all orders of all customers.
+     * Returns orders of all customers with pagination, by selected parameters.
+     * The @PreAuthorize annotation says the controller is accessible
+     * only to users with administrator rights.
      * URL request {"/orders"}, method GET.
      *
-     * @param model class object {@link Model}.
+     * @param pageable  object that specifies the information of the requested page.
+     * @param dateFrom  the first date of the order.
+     * @param dateTo    the last date of the order.
+     * @param email     prefix of the customer email.
+     * @param city      city of delivery.
+     * @param totalFrom minimum total price.
+     * @param totalTo   maximum total price.
+     * @param model     class object {@link Model}.
      * @return orders page with model attributes.
      */
+    @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping("/orders")
-    public String getAllOrdersList(Model model) {
-        List<Order> orders = orderService.findAll();
-        model.addAttribute("orders", orders);
+    public String getAllOrdersList(
+            @PageableDefault(sort = {"id"}, direction = Sort.Direction.DESC, size = 12) Pageable pageable,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Double totalFrom,
+            @RequestParam(required = false) Double totalTo,
+            Model model
+    ) {
+        email = StringUtils.hasText(email) ? email.trim() : null;
+        city = StringUtils.hasText(city) ? city.trim() : null;
+
+        Page<Order> page = orderService.findAll(dateFrom, dateTo, email, city, totalFrom, totalTo, pageable);
+        int[] pagination = ControllerUtils.computePagination(page);
+
+        String url = UriComponentsBuilder.fromPath("/orders")
+                .queryParamIfPresent("dateFrom", Optional.ofNullable(dateFrom))
+                .queryParamIfPresent("dateTo", Optional.ofNullable(dateTo))
+                .queryParamIfPresent("email", Optional.ofNullable(email))
+                .queryParamIfPresent("city", Optional.ofNullable(city))
+                .queryParamIfPresent("totalFrom", Optional.ofNullable(totalFrom))
+                .queryParamIfPresent("totalTo", Optional.ofNullable(totalTo))
+                .encode()
+                .toUriString();
+
+        model.addAttribute("pagination", pagination);
+        model.addAttribute("url", url);
+        model.addAttribute("page", page);
+        model.addAttribute("orders", page.getContent());
+        model.addAttribute("dateFrom", dateFrom);
+        model.addAttribute("dateTo", dateTo);
+        model.addAttribute("email", email);
+        model.addAttribute("city", city);
+        model.addAttribute("totalFrom", totalFrom);
+        model.addAttribute("totalTo", totalTo);
 
         return "order/orders";
     }
@@ -5,21 +5,18 @@ import org.springframework.mail.MailAuthenticationException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.web.bind.annotation.*;
 import ru.ellada.ecommerce.domain.User;
-import ru.ellada.ecommerce.domain.dto.CaptchaResponseDto;
 import ru.ellada.ecommerce.service.Impl.MailSender;
+import ru.ellada.ecommerce.service.CaptchaService;
 import ru.ellada.ecommerce.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
-import org.springframework.web.client.RestTemplate;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
 
@@ -33,16 +30,11 @@ import java.util.UUID;
  * @version 1.0
  * @see User
  * @see UserService
- * @see RestTemplate
+ * @see CaptchaService
  */
 @Controller
 @Slf4j
 public class RegistrationController {
-    /**
-     * URL for request to the google server.
-     */
-    public static final String CAPTCHA_URL = "https://www.google.com/recaptcha/api/siteverify?secret=%s&response=%s";
-
     /**
      * Service object for working with users.
      */
@@ -51,33 +43,29 @@ public class RegistrationController {
     /**
      * Mail service.
      */
-    private MailSender mailSender;
+    private final MailSender mailSender;
 
     @Autowired
     private Environment env;
 
     /**
-     * Object which offers templates for common scenarios by HTTP method.
+     * Service object for verifying the captcha.
      */
-    private final RestTemplate restTemplate;
-
-    /**
-     * reCAPTCHA Secret.
-     */
-    @Value("${recaptcha.secret}")
-    private String secret;
+    private final CaptchaService captchaService;
 
     /**
      * Constructor for initializing the main variables of the cart controller.
      * The @Autowired annotation will allow Spring to automatically initialize objects.
      *
-     * @param userService  service object for working with users.
-     * @param restTemplate object which offers templates for common scenarios by HTTP method.
+     * @param userService    service object for working with users.
+     * @param mailSender     mail service.
+     * @param captchaService service object for verifying the captcha.
      */
     @Autowired
-    public RegistrationController(UserService userService, RestTemplate restTemplate) {
+    public RegistrationController(UserService userService, MailSender mailSender, CaptchaService captchaService) {
         this.userService = userService;
-        this.restTemplate = restTemplate;
+        this.mailSender = mailSender;
+        this.captchaService = captchaService;
     }
 
     /**
@@ -93,6 +81,7 @@ public class RegistrationController {
 
     /**
      * Reset password by email to the user.
+     * The email is put to the mail queue, so the request does not wait for the SMTP server.
      * URL request {"/user/resetPassword"}, method POST.
      *
      * @param userEmail user's registred email.
@@ -163,11 +152,9 @@ public class RegistrationController {
             BindingResult bindingResult,
             Model model
     ) {
-        String url = String.format(CAPTCHA_URL, secret, captchaResponse);
-
-        CaptchaResponseDto response = restTemplate.postForObject(url, Collections.emptyList(), CaptchaResponseDto.class);
+        boolean isCaptchaPassed = captchaService.verify(captchaResponse);
 
-        if (!response.isSuccess()) {
+        if (!isCaptchaPassed) {
             model.addAttribute("captchaError", "Fill captcha");
         }
 
@@ -182,7 +169,7 @@ public class RegistrationController {
             model.addAttribute("passwordError", "Пароли не совпадают");
         }
 
-        if (isConfirmEmpty || isPasswordDifferent || bindingResult.hasErrors() || !response.isSuccess()) {
+        if (isConfirmEmpty || isPasswordDifferent || bindingResult.hasErrors() || !isCaptchaPassed) {
             Map<String, String> errors = ControllerUtils.getErrors(bindingResult);
 
             model.mergeAttributes(errors);
@@ -7,6 +7,7 @@ import org.springframework.mail.SimpleMailMessage;
 import ru.ellada.ecommerce.domain.Candle;
 import ru.ellada.ecommerce.domain.Role;
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.domain.dto.UserSummaryDto;
 import ru.ellada.ecommerce.service.CandleService;
 import ru.ellada.ecommerce.service.Impl.MailSender;
 import ru.ellada.ecommerce.service.UserService;
@@ -21,15 +22,18 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -208,18 +212,38 @@ public class UserController {
     }
 
     /**
-     * Returns all users.
+     * Returns users with pagination, found by the prefix of the name or email.
      * The @PreAuthorize annotation says the controller is accessible
      * only to users with administrator rights.
      * URL request {"/user"}, method GET.
      *
-     * @param model class object {@link Model}.
+     * @param pageable object that specifies the information of the requested page.
+     * @param search   prefix of the user name or email.
+     * @param model    class object {@link Model}.
      * @return userList page with model attributes.
      */
     @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping
-    public String userList(Model model) {
-        model.addAttribute("users", userService.findAll());
+    public String userList(
+            @PageableDefault(sort = {"id"}, direction = Sort.Direction.ASC, size = 20) Pageable pageable,
+            @RequestParam(required = false) String search,
+            Model model
+    ) {
+        search = StringUtils.hasText(search) ? search.trim() : null;
+
+        Page<UserSummaryDto> page = userService.findAll(search, pageable);
+        int[] pagination = ControllerUtils.computePagination(page);
+
+        String url = UriComponentsBuilder.fromPath("/user")
+                .queryParamIfPresent("search", Optional.ofNullable(search))
+                .encode()
+                .toUriString();
+
+        model.addAttribute("pagination", pagination);
+        model.addAttribute("url", url);
+        model.addAttribute("page", page);
+        model.addAttribute("users", page.getContent());
+        model.addAttribute("search", search);
 
         return "admin/userList";
     }
@@ -286,6 +310,7 @@ public class UserController {
 
     /**
      * Save edited password or email to the database by user.
+     * The user is loaded from the database, as the authenticated user may be restored from a token.
      * URL request {"/user/edit"}, method POST.
      *
      * @param user     request Authenticated user.
@@ -299,7 +324,8 @@ public class UserController {
             @RequestParam String password,
             @RequestParam String email
     ) {
-        userService.updateProfile(user, password, email);
+        User userFromDB = userService.findByUsername(user.getUsername());
+        userService.updateProfile(userFromDB, password, email);
 
         log.debug("{} change personal info: password={}, email={}", user.getUsername(), password, email);
 
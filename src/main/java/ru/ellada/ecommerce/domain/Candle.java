@@ -9,6 +9,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.io.Serializable;
 
 /**
  * The class describes the "Candle" entity.
@@ -18,6 +19,7 @@ import javax.validation.constraints.NotNull;
  * The @AllArgsConstructor annotation generates all args constructor.
  * The @EqualsAndHashCode annotation generates implementations for the {@code equals} and {@code hashCode} methods inherited
  * by all objects, based on relevant fields.
+ * The class is serializable, as the cart of the user is stored in the shared session store.
  *
  * @author Govorukhin Dmitriy
  * @version 1.0
@@ -28,7 +30,8 @@ import javax.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = {"id", "candleTitle", "candleType", "price", "anotherPrice"})
-public class Candle {
+public class Candle implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      * The unique code of the object.
@@ -4,6 +4,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -110,8 +111,10 @@ public class Order {
      * Between the {@link Order} and {@link Candle} objects, there is a many-to-many relationship, that is,
      * every record in one table is directly related to every record in another table.
      * Sampling on first access to the current object.
+     * The @BatchSize annotation loads the lists of several orders with one query.
      */
     @OrderColumn
+    @BatchSize(size = 50)
     @ManyToMany(fetch = FetchType.EAGER)
     private List<Candle> candleList;
 
@@ -0,0 +1,83 @@
+package ru.ellada.ecommerce.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The class describes the "OutboxEvent" entity.
+ * An event is written in the same transaction as the change of its aggregate
+ * and is later delivered to the handlers by the outbox relay.
+ * The @Entity annotation says that objects of this class will be processed by hibernate.
+ * The @Table (name = "outbox_event") annotation indicates to the "outbox_event" table in which the objects will be stored.
+ * The @Getter and @Setter annotation generates getters and setters for all fields.
+ * The @NoArgsConstructor annotation generates no-args constructor.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEventType
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+    /**
+     * The unique code of the object.
+     * The @Id annotation says that the field is the key for the current object.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Event type.
+     */
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType eventType;
+
+    /**
+     * The unique code of the object the event is about.
+     */
+    private Long aggregateId;
+
+    /**
+     * Date and time when the event was written.
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * Date and time after which the event can be delivered.
+     */
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * Number of failed delivery attempts.
+     */
+    private int attempts;
+
+    /**
+     * Error of the last failed delivery attempt.
+     */
+    private String lastError;
+
+    public OutboxEvent(OutboxEventType eventType, Long aggregateId) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    /**
+     * Returns the key of the work done for this event, the same for every delivery attempt.
+     *
+     * @return delivery key.
+     */
+    public String getDeliveryKey() {
+        return "outbox-" + id;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.ellada.ecommerce.domain;
+
+/**
+ * Enumeration of event types written to the outbox.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEvent
+ */
+public enum OutboxEventType {
+    /**
+     * A new user has registered, the aggregate is the {@link User}.
+     */
+    USER_REGISTERED,
+
+    /**
+     * A user has changed the email, the aggregate is the {@link User}.
+     */
+    USER_EMAIL_CHANGED,
+
+    /**
+     * A customer has placed an order, the aggregate is the {@link Order}.
+     */
+    ORDER_PLACED
+}
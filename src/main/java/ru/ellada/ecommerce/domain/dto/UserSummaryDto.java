@@ -0,0 +1,59 @@
+package ru.ellada.ecommerce.domain.dto;
+
+import lombok.Getter;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Data Transfer Object class with the columns of the {@link User} shown in the admin user list.
+ * It is selected by a constructor expression, so neither the cart nor the password is loaded.
+ * The @Getter annotation generates getters for all fields.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Getter
+public class UserSummaryDto {
+    /**
+     * The unique code of the user.
+     */
+    private final Long id;
+
+    /**
+     * User name.
+     */
+    private final String username;
+
+    /**
+     * User email.
+     */
+    private final String email;
+
+    /**
+     * Whether the user has confirmed the email.
+     */
+    private final boolean active;
+
+    /**
+     * User roles, filled by a separate query for the whole page.
+     */
+    private final Set<Role> roles = EnumSet.noneOf(Role.class);
+
+    /**
+     * Constructor used by the query constructor expression.
+     *
+     * @param id       the unique code of the user.
+     * @param username user name.
+     * @param email    user email.
+     * @param active   whether the user has confirmed the email.
+     */
+    public UserSummaryDto(Long id, String username, String email, boolean active) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.active = active;
+    }
+}
@@ -2,20 +2,37 @@ package ru.ellada.ecommerce.repos;
 
 import ru.ellada.ecommerce.domain.Order;
 import ru.ellada.ecommerce.domain.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
 
 /**
  * A repository for {@link Order} objects providing a set of JPA methods for working with the database.
- * Inherits interface {@link JpaRepository}.
+ * Inherits interfaces {@link JpaRepository} and {@link JpaSpecificationExecutor}.
  *
  * @author Govorukhin Dmitriy
  * @version 1.0
  * @see Order
  * @see JpaRepository
+ * @see OrderSpecifications
  */
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+    /**
+     * Returns list of orders matching the given filter.
+     * A {@link Page} is a sublist of a list of objects.
+     * The products of all orders on the page are loaded in a single batch,
+     * see {@link Order#getCandleList()}.
+     *
+     * @param specification filter built from {@link OrderSpecifications}.
+     * @param pageable      object that specifies the information of the requested page.
+     * @return list of {@link Order}.
+     */
+    Page<Order> findAll(Specification<Order> specification, Pageable pageable);
+
     /**
      * Returns list of orders authenticated user.
      *
@@ -0,0 +1,87 @@
+package ru.ellada.ecommerce.repos;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.ellada.ecommerce.domain.Order;
+
+import java.time.LocalDate;
+
+/**
+ * Class with {@link Specification} factory methods for filtering {@link Order} objects.
+ * Each method returns {@code null} when its parameter is not set, so the filter is skipped
+ * when specifications are combined with {@link Specification#where} and {@link Specification#and}.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see Order
+ * @see OrderRepository
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Returns orders made on or after the given date.
+     *
+     * @param dateFrom the first date of the range.
+     * @return specification or {@code null} if the date is not set.
+     */
+    public static Specification<Order> dateFrom(LocalDate dateFrom) {
+        return dateFrom == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), dateFrom);
+    }
+
+    /**
+     * Returns orders made on or before the given date.
+     *
+     * @param dateTo the last date of the range.
+     * @return specification or {@code null} if the date is not set.
+     */
+    public static Specification<Order> dateTo(LocalDate dateTo) {
+        return dateTo == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("date"), dateTo);
+    }
+
+    /**
+     * Returns orders whose customer email starts with the given prefix, ignoring case.
+     *
+     * @param email email prefix.
+     * @return specification or {@code null} if the email is not set.
+     */
+    public static Specification<Order> emailStartsWith(String email) {
+        return email == null ? null
+                : (root, query, cb) -> cb.like(cb.lower(root.get("email")), escapeLike(email.toLowerCase()) + "%", '\\');
+    }
+
+    /**
+     * Returns orders delivered to the given city, ignoring case.
+     *
+     * @param city city of delivery.
+     * @return specification or {@code null} if the city is not set.
+     */
+    public static Specification<Order> cityEquals(String city) {
+        return city == null ? null : (root, query, cb) -> cb.equal(cb.lower(root.get("city")), city.toLowerCase());
+    }
+
+    /**
+     * Returns orders with the total price greater than or equal to the given value.
+     *
+     * @param totalFrom minimum total price.
+     * @return specification or {@code null} if the value is not set.
+     */
+    public static Specification<Order> totalPriceFrom(Double totalFrom) {
+        return totalFrom == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("totalPrice"), totalFrom);
+    }
+
+    /**
+     * Returns orders with the total price less than or equal to the given value.
+     *
+     * @param totalTo maximum total price.
+     * @return specification or {@code null} if the value is not set.
+     */
+    public static Specification<Order> totalPriceTo(Double totalTo) {
+        return totalTo == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("totalPrice"), totalTo);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,38 @@
+package ru.ellada.ecommerce.repos;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A repository for {@link OutboxEvent} objects providing a set of JPA methods for working with the database.
+ * Inherits interface {@link JpaRepository}.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEvent
+ * @see JpaRepository
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Returns the oldest events which are ready for delivery and locks them.
+     * Events locked by another relay are skipped, so several instances can drain the outbox at once.
+     *
+     * @param now         current date and time.
+     * @param maxAttempts events with this number of failed attempts are not returned.
+     * @param pageable    object that specifies the size of the batch.
+     * @return list of {@link OutboxEvent}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.nextAttemptAt <= ?1 AND e.attempts < ?2 ORDER BY e.id")
+    List<OutboxEvent> findReadyForDelivery(LocalDateTime now, int maxAttempts, Pageable pageable);
+}
@@ -3,6 +3,8 @@ package ru.ellada.ecommerce.repos;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.ellada.ecommerce.domain.PasswordResetToken;
 import ru.ellada.ecommerce.domain.User;
 
@@ -22,4 +24,16 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     @Modifying
     @Query("delete from PasswordResetToken t where t.expiryDate <= ?1")
     void deleteAllExpiredSince(Date now);
+
+    /**
+     * Deletes at most {@code limit} tokens expired before {@code now} in its own short transaction.
+     *
+     * @return number of deleted tokens.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from password_reset_token where id in (" +
+            "select id from password_reset_token where expiry_date < :now limit :limit for update skip locked)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Date now, @Param("limit") int limit);
 }
@@ -1,7 +1,18 @@
 package ru.ellada.ecommerce.repos;
 
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.domain.dto.UserSummaryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * A repository for {@link User} objects providing a set of JPA methods for working with the database.
@@ -37,4 +48,61 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return The {@link User} class object.
      */
     User findUserByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Returns a page of user summaries without the cart.
+     *
+     * @param pageable object that specifies the information of the requested page.
+     * @return page of {@link UserSummaryDto}.
+     */
+    @Query(value = "select new ru.ellada.ecommerce.domain.dto.UserSummaryDto(u.id, u.username, u.email, u.active) " +
+            "from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserSummaryDto> findSummaries(Pageable pageable);
+
+    /**
+     * Returns a page of summaries of users whose name or email starts with the given pattern, ignoring case.
+     *
+     * @param pattern  lower case LIKE pattern with the escaped prefix followed by '%'.
+     * @param pageable object that specifies the information of the requested page.
+     * @return page of {@link UserSummaryDto}.
+     */
+    @Query(value = "select new ru.ellada.ecommerce.domain.dto.UserSummaryDto(u.id, u.username, u.email, u.active) " +
+            "from User u where lower(u.username) like :pattern escape '\\' " +
+            "or lower(u.email) like :pattern escape '\\'",
+            countQuery = "select count(u) from User u where lower(u.username) like :pattern escape '\\' " +
+                    "or lower(u.email) like :pattern escape '\\'")
+    Page<UserSummaryDto> searchSummaries(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Returns pairs of user id and role for the given users in one query.
+     *
+     * @param ids ids of the users.
+     * @return list of arrays with the user id and the {@link ru.ellada.ecommerce.domain.Role}.
+     */
+    @Query("select u.id, r from User u join u.roles r where u.id in :ids")
+    List<Object[]> findRolesByUserIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes at most {@code limit} users registered before the given time who never activated their account,
+     * together with their roles, cart and reset tokens, in its own short transaction.
+     * Users with orders are kept.
+     *
+     * @param createdBefore users registered before this time are deleted.
+     * @param limit         maximum number of deleted users.
+     * @return number of deleted users.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "with stale as (" +
+            "select u.id from usr u where u.active = false and u.activation_code is not null " +
+            "and u.created_at < :createdBefore " +
+            "and not exists (select 1 from orders o where o.user_id = u.id) " +
+            "limit :limit for update skip locked), " +
+            "roles as (delete from user_role where user_id in (select id from stale)), " +
+            "cart as (delete from usr_candle_list where user_id in (select id from stale)), " +
+            "tokens as (delete from password_reset_token where user_id in (select id from stale)) " +
+            "delete from usr where id in (select id from stale)",
+            nativeQuery = true)
+    int deleteStaleUnactivatedBatch(@Param("createdBefore") LocalDateTime createdBefore, @Param("limit") int limit);
+}
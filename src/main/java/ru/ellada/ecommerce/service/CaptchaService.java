@@ -0,0 +1,20 @@
+package ru.ellada.ecommerce.service;
+
+import ru.ellada.ecommerce.service.Impl.CaptchaServiceImpl;
+
+/**
+ * The service layer interface describes the verification of the reCAPTCHA response.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see CaptchaServiceImpl
+ */
+public interface CaptchaService {
+    /**
+     * Return true if the captcha response is verified by the captcha server.
+     *
+     * @param captchaResponse captcha response from the registration form.
+     * @return true if the captcha is passed.
+     */
+    boolean verify(String captchaResponse);
+}
@@ -0,0 +1,11 @@
+package ru.ellada.ecommerce.service;
+
+/**
+ * Application event published when a candle of the catalog is created or changed.
+ * Listeners holding rendered catalog pages, such as the page cache, drop them on this event.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+public class CatalogChangedEvent {
+}
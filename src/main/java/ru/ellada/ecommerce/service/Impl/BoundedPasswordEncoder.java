@@ -0,0 +1,115 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password encoder which hashes passwords on a dedicated bounded pool of threads.
+ * A slow hash can not occupy more than the pool size of CPUs, so request threads are not starved
+ * by a login storm. When the queue of the pool is full or the hash takes too long,
+ * an {@link AuthenticationServiceException} is thrown instead of waiting.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * How long a caller waits for the hash, including the time in the queue.
+     */
+    private final Duration timeout;
+
+    /**
+     * Constructor for initializing the encoder and its pool of threads.
+     *
+     * @param delegate      encoder which computes the hashes.
+     * @param threads       number of hashing threads.
+     * @param queueCapacity maximum number of hashes waiting for a thread.
+     * @param timeout       how long a caller waits for the hash.
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns number of hashes waiting for a hashing thread.
+     *
+     * @return number of waiting hashes.
+     */
+    int queuedHashes() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T call(Callable<T> hash) {
+        Future<T> future;
+        try {
+            future = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue is full");
+            throw new AuthenticationServiceException("Password hashing is overloaded, try again later", e);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Password hashing took longer than {} ms", timeout.toMillis());
+            throw new AuthenticationServiceException("Password hashing is overloaded, try again later", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password hashing was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AuthenticationServiceException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -3,7 +3,9 @@ package ru.ellada.ecommerce.service.Impl;
 import ru.ellada.ecommerce.domain.Candle;
 import ru.ellada.ecommerce.repos.CandleRepository;
 import ru.ellada.ecommerce.service.CandleService;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -32,16 +34,23 @@ public class CandleServiceImpl implements CandleService {
      */
     private final CandleRepository candleRepository;
 
+    /**
+     * Publisher of the catalog change events.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Constructor for initializing the main variables of the order service.
      * The @Autowired annotation will allow Spring to automatically initialize objects.
      *
      * @param candleRepository implementation of the {@link CandleRepository} interface
      *                         for working with candles with a database.
+     * @param eventPublisher   publisher of the catalog change events.
      */
     @Autowired
-    public CandleServiceImpl(CandleRepository candleRepository) {
+    public CandleServiceImpl(CandleRepository candleRepository, ApplicationEventPublisher eventPublisher) {
         this.candleRepository = candleRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -146,6 +155,7 @@ public class CandleServiceImpl implements CandleService {
                                     Integer anothePrice, Integer anotherVolume, Long id
     ) {
         candleRepository.saveProductInfoById(candleTitle, fragranceNotes, description, filename, price, volume, anothePrice, anotherVolume, id);
+        eventPublisher.publishEvent(new CatalogChangedEvent());
     }
 
     /**
@@ -156,6 +166,8 @@ public class CandleServiceImpl implements CandleService {
      */
     @Override
     public Candle save(Candle candle) {
-        return candleRepository.save(candle);
+        Candle savedCandle = candleRepository.save(candle);
+        eventPublisher.publishEvent(new CatalogChangedEvent());
+        return savedCandle;
     }
 }
@@ -0,0 +1,175 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.ellada.ecommerce.domain.dto.CaptchaResponseDto;
+import ru.ellada.ecommerce.service.CaptchaService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * The service layer class implements the verification of the reCAPTCHA response
+ * in the {@link CaptchaService} interface.
+ * Requests go through one {@link HttpClient}, which keeps connections to the captcha server alive,
+ * with connect and request timeouts. Failed calls are counted by a {@link CircuitBreaker};
+ * while the server is unavailable the result is decided by the fail-open policy.
+ * Calls are timed by the {@code captcha.verify} timer tagged with the outcome.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see CaptchaService
+ * @see CaptchaResponseDto
+ * @see CircuitBreaker
+ */
+@Slf4j
+@Service
+public class CaptchaServiceImpl implements CaptchaService {
+    /**
+     * URL of the captcha verification server.
+     */
+    private final URI url;
+
+    /**
+     * reCAPTCHA Secret.
+     */
+    private final String secret;
+
+    /**
+     * Timeout of the whole request, including the response.
+     */
+    private final Duration readTimeout;
+
+    /**
+     * If true, the captcha is passed while the captcha server is unavailable.
+     */
+    private final boolean failOpen;
+
+    private final HttpClient httpClient;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor for initializing the main variables of the captcha service.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param url              URL of the captcha verification server.
+     * @param secret           reCAPTCHA Secret.
+     * @param connectTimeoutMs timeout of the connection, in milliseconds.
+     * @param readTimeoutMs    timeout of the whole request, in milliseconds.
+     * @param failOpen         if true, the captcha is passed while the captcha server is unavailable.
+     * @param failureThreshold number of consecutive failures which opens the circuit.
+     * @param openMs           time the circuit stays open, in milliseconds.
+     * @param objectMapper     mapper of the JSON response.
+     * @param meterRegistry    registry of the captcha timer.
+     */
+    @Autowired
+    public CaptchaServiceImpl(@Value("${recaptcha.url:https://www.google.com/recaptcha/api/siteverify}") String url,
+                              @Value("${recaptcha.secret}") String secret,
+                              @Value("${recaptcha.connect-timeout-ms:1000}") long connectTimeoutMs,
+                              @Value("${recaptcha.read-timeout-ms:2000}") long readTimeoutMs,
+                              @Value("${recaptcha.fail-open:false}") boolean failOpen,
+                              @Value("${recaptcha.breaker.failure-threshold:5}") int failureThreshold,
+                              @Value("${recaptcha.breaker.open-ms:30000}") long openMs,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.url = URI.create(url);
+        this.secret = secret;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.failOpen = failOpen;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Return true if the captcha response is verified by the captcha server.
+     * While the circuit is open the captcha server is not called.
+     * Any failure of the call, including an unexpected response body, is recorded by the circuit breaker,
+     * so a failed trial call in the half-open state opens the circuit again.
+     *
+     * @param captchaResponse captcha response from the registration form.
+     * @return true if the captcha is passed.
+     */
+    @Override
+    public boolean verify(String captchaResponse) {
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("Captcha server circuit is open, fail-open={}", failOpen);
+            meterRegistry.counter("captcha.short.circuited").increment();
+            return failOpen;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(readTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("secret=" + encode(secret) + "&response=" + encode(captchaResponse)))
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Captcha server responded with status " + response.statusCode());
+            }
+            CaptchaResponseDto captcha = objectMapper.readValue(response.body(), CaptchaResponseDto.class);
+            if (captcha == null) {
+                throw new IOException("Captcha server responded with an empty body");
+            }
+            circuitBreaker.onSuccess();
+            sample.stop(timer(captcha.isSuccess() ? "passed" : "rejected"));
+
+            if (!captcha.isSuccess()) {
+                log.debug("Captcha is not passed: {}", captcha.getErrorCodes());
+            }
+            return captcha.isSuccess();
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onFailure();
+            sample.stop(timer("error"));
+            log.warn("Captcha verification failed, fail-open={}: {}", failOpen, e.toString());
+            return failOpen;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onFailure();
+            sample.stop(timer("error"));
+            return failOpen;
+        }
+    }
+
+    /**
+     * Returns the state of the circuit breaker.
+     *
+     * @return state of the circuit.
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("captcha.verify")
+                .description("Time to verify a captcha response with the captcha server")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+    }
+}
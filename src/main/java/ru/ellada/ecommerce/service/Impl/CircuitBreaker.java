@@ -0,0 +1,92 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for calls to a remote service.
+ * After the given number of consecutive failures the circuit opens and calls are not permitted
+ * until the open time has passed. Then one trial call is permitted: its success closes the circuit,
+ * its failure opens it again.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+public class CircuitBreaker {
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openMs;
+
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long openedAt;
+
+    /**
+     * Constructor for initializing the breaker settings.
+     *
+     * @param failureThreshold number of consecutive failures which opens the circuit.
+     * @param openMs           time the circuit stays open, in milliseconds.
+     */
+    public CircuitBreaker(int failureThreshold, long openMs) {
+        this(failureThreshold, openMs, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMs, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns true if a call is permitted.
+     *
+     * @return true if a call is permitted.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records a successful call.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Returns the state of the circuit.
+     *
+     * @return state of the circuit.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
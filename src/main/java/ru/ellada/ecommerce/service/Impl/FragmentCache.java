@@ -0,0 +1,147 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the rendered template fragments which are the same for every user.
+ * Layout fragments depend only on the template and are kept until the restart, candle fragments
+ * are dropped when the catalog changes. Hits and misses are exported as the {@code fragment.cache} counter.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see CatalogChangedEvent
+ */
+@Component
+public class FragmentCache {
+    /**
+     * Whether fragments are cached, they are rendered every time when the template cache is off.
+     */
+    private final boolean enabled;
+
+    /**
+     * Maximum number of candle fragments kept in the cache.
+     */
+    private final int maxEntries;
+
+    private final Map<String, String> layouts = new ConcurrentHashMap<>();
+
+    private final Map<String, String> candles = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    /**
+     * Constructor for initializing the cache settings.
+     *
+     * @param enabled       whether fragments are cached.
+     * @param maxEntries    maximum number of candle fragments kept in the cache.
+     * @param meterRegistry registry of the cache metrics.
+     */
+    @Autowired
+    public FragmentCache(@Value("${fragment-cache.enabled:${spring.thymeleaf.cache:true}}") boolean enabled,
+                         @Value("${fragment-cache.max-entries:10000}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.hitCounter = Counter.builder("fragment.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("fragment.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached layout fragment or renders it.
+     *
+     * @param key      template, fragment and locale of the fragment.
+     * @param renderer renders the fragment.
+     * @return rendered fragment.
+     */
+    public String getLayout(String key, Supplier<String> renderer) {
+        if (!enabled) {
+            return renderer.get();
+        }
+        String fragment = layouts.get(key);
+        if (fragment != null) {
+            hitCounter.increment();
+            return fragment;
+        }
+        missCounter.increment();
+        fragment = renderer.get();
+        layouts.put(key, fragment);
+        return fragment;
+    }
+
+    /**
+     * Returns the cached candle fragment of the current catalog version or renders it.
+     * A fragment rendered while the catalog changed is returned but not cached.
+     *
+     * @param key      template, fragment, locale and candle id of the fragment.
+     * @param renderer renders the fragment.
+     * @return rendered fragment.
+     */
+    public String getCandle(String key, Supplier<String> renderer) {
+        if (!enabled) {
+            return renderer.get();
+        }
+        long versionBeforeRender = version.get();
+        String versionedKey = key + "@" + versionBeforeRender;
+        String fragment = candles.get(versionedKey);
+        if (fragment != null) {
+            hitCounter.increment();
+            return fragment;
+        }
+        missCounter.increment();
+        fragment = renderer.get();
+        if (version.get() == versionBeforeRender) {
+            evictIfFull();
+            candles.put(versionedKey, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Drops the candle fragments.
+     * Runs after the commit of the transaction that published the event or at once outside of a transaction.
+     *
+     * @param event catalog change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+        candles.clear();
+    }
+
+    /**
+     * Returns number of fragments in the cache.
+     *
+     * @return number of fragments.
+     */
+    int size() {
+        return layouts.size() + candles.size();
+    }
+
+    private void evictIfFull() {
+        Iterator<String> keys = candles.keySet().iterator();
+        while (candles.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
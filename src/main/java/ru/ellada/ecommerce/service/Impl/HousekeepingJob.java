@@ -0,0 +1,130 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ellada.ecommerce.repos.PasswordResetTokenRepository;
+import ru.ellada.ecommerce.repos.UserRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.function.IntSupplier;
+
+/**
+ * Scheduled job which deletes expired password reset tokens and users who never activated their account.
+ * Rows are deleted in chunks, each in its own short transaction, with a pause between chunks,
+ * so the tables are not locked for long and the database is not flooded.
+ * Only one instance runs the job at a time, guarded by the {@link SchedulerLock}.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see SchedulerLock
+ */
+@Slf4j
+@Component
+public class HousekeepingJob {
+    private static final String LOCK_NAME = "housekeeping";
+
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+
+    private final UserRepository userRepository;
+
+    private final SchedulerLock schedulerLock;
+
+    private final Clock clock;
+
+    /**
+     * Number of rows deleted in one chunk.
+     */
+    @Value("${housekeeping.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Pause between chunks, in milliseconds.
+     */
+    @Value("${housekeeping.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    /**
+     * Number of days after which a user who has not activated the account is deleted.
+     */
+    @Value("${housekeeping.unactivated-user-retention-days:7}")
+    private long unactivatedUserRetentionDays;
+
+    /**
+     * How long one run may take, the lock is leased for this time.
+     */
+    @Value("${housekeeping.max-run-minutes:10}")
+    private long maxRunMinutes;
+
+    /**
+     * Constructor for initializing the main variables of the job.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param passwordResetTokenRepository repository of the password reset tokens.
+     * @param userRepository               repository of the users.
+     * @param schedulerLock                lock which lets only one instance run the job.
+     */
+    @Autowired
+    public HousekeepingJob(PasswordResetTokenRepository passwordResetTokenRepository, UserRepository userRepository,
+                           SchedulerLock schedulerLock) {
+        this(passwordResetTokenRepository, userRepository, schedulerLock, Clock.systemDefaultZone());
+    }
+
+    HousekeepingJob(PasswordResetTokenRepository passwordResetTokenRepository, UserRepository userRepository,
+                    SchedulerLock schedulerLock, Clock clock) {
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+        this.userRepository = userRepository;
+        this.schedulerLock = schedulerLock;
+        this.clock = clock;
+    }
+
+    /**
+     * Deletes expired tokens and stale unactivated users if no other instance is running the job.
+     */
+    @Scheduled(cron = "${housekeeping.cron:0 15 * * * *}")
+    public void run() {
+        Duration maxRun = Duration.ofMinutes(maxRunMinutes);
+        if (!schedulerLock.tryLock(LOCK_NAME, maxRun)) {
+            log.debug("Housekeeping is running on another instance");
+            return;
+        }
+
+        try {
+            long deadline = clock.millis() + maxRun.toMillis();
+            Date now = new Date(clock.millis());
+            LocalDateTime createdBefore = LocalDateTime.now(clock).minusDays(unactivatedUserRetentionDays);
+
+            int tokens = deleteInChunks(() -> passwordResetTokenRepository.deleteExpiredBatch(now, chunkSize), deadline);
+            int users = deleteInChunks(() -> userRepository.deleteStaleUnactivatedBatch(createdBefore, chunkSize),
+                    deadline);
+
+            if (tokens > 0 || users > 0) {
+                log.info("Housekeeping deleted {} expired reset tokens and {} unactivated users", tokens, users);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Housekeeping failed", e);
+        } finally {
+            schedulerLock.unlock(LOCK_NAME);
+        }
+    }
+
+    private int deleteInChunks(IntSupplier deleteChunk, long deadline) throws InterruptedException {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = deleteChunk.getAsInt();
+            deleted += chunk;
+            if (chunk == chunkSize && chunkPauseMs > 0) {
+                Thread.sleep(chunkPauseMs);
+            }
+        } while (chunk == chunkSize && clock.millis() < deadline);
+        return deleted;
+    }
+}
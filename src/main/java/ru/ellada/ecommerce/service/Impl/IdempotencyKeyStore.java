@@ -0,0 +1,141 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory store of idempotency keys.
+ * The first request with a key executes the action, replays of the same key within the window
+ * wait for it and return the same result instead of executing the action again.
+ * If the action fails with any exception or error, the key is released so the client can retry,
+ * and the replays waiting for it execute the action themselves.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Component
+public class IdempotencyKeyStore {
+    /**
+     * How long the result of a key is kept.
+     */
+    private final Duration window;
+
+    /**
+     * Maximum number of keys kept in the store.
+     */
+    private final int maxKeys;
+
+    private final Clock clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for initializing the store settings.
+     *
+     * @param windowMinutes how long the result of a key is kept, in minutes.
+     * @param maxKeys       maximum number of keys kept in the store.
+     */
+    @Autowired
+    public IdempotencyKeyStore(@Value("${checkout.idempotency.window-minutes:10}") long windowMinutes,
+                               @Value("${checkout.idempotency.max-keys:10000}") int maxKeys) {
+        this(Duration.ofMinutes(windowMinutes), maxKeys, Clock.systemUTC());
+    }
+
+    IdempotencyKeyStore(Duration window, int maxKeys, Clock clock) {
+        this.window = window;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Executes the action once per key within the window.
+     *
+     * @param key    idempotency key, {@code null} executes the action without deduplication.
+     * @param action action to execute.
+     * @param <T>    type of the action result.
+     * @return result of the first execution of the action for this key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        long now = clock.millis();
+        Entry entry = new Entry(now);
+        Entry existing = entries.putIfAbsent(key, entry);
+
+        while (existing != null && existing.isExpired(now, window)) {
+            entries.remove(key, existing);
+            existing = entries.putIfAbsent(key, entry);
+        }
+
+        if (existing != null) {
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException e) {
+                return execute(key, action);
+            }
+        }
+
+        evictIfFull(now);
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns number of keys in the store.
+     *
+     * @return number of keys.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() <= maxKeys) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now, window));
+
+        while (entries.size() > maxKeys) {
+            Optional<Map.Entry<String, Entry>> oldest = entries.entrySet().stream()
+                    .filter(e -> e.getValue().result.isDone())
+                    .min(Comparator.comparingLong(e -> e.getValue().createdAt));
+            if (oldest.isEmpty()) {
+                return;
+            }
+            entries.remove(oldest.get().getKey(), oldest.get().getValue());
+        }
+    }
+
+    private static class Entry {
+        private final long createdAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, Duration window) {
+            return result.isDone() && now - createdAt > window.toMillis();
+        }
+    }
+}
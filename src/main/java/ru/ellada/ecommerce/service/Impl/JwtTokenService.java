@@ -0,0 +1,244 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and validates the signed tokens of the stateless session mode.
+ * An access token carries everything the pages need about the user, so it is validated
+ * without the database or a session. A refresh token only names the user, the user is loaded again
+ * when a new access token is issued, so changed roles and deactivated users take effect on refresh.
+ * In the stateless mode the application does not start without a real secret: anyone who knows
+ * the secret can sign a token with any user and roles.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Component
+public class JwtTokenService {
+    private static final String TYPE_CLAIM = "typ";
+
+    private static final String ACCESS_TYPE = "access";
+
+    private static final String REFRESH_TYPE = "refresh";
+
+    /**
+     * Minimum length of the secret, HS256 needs a key of at least 256 bits.
+     */
+    static final int MIN_SECRET_BYTES = 32;
+
+    /**
+     * Secrets from examples and old defaults which must not sign real tokens.
+     */
+    private static final Set<String> PLACEHOLDER_SECRETS = Set.of(
+            "ellada-local-development-secret-change-me",
+            "secret",
+            "changeme",
+            "change-me",
+            "changeit");
+
+    /**
+     * HMAC key shared by all nodes.
+     */
+    private final byte[] secret;
+
+    /**
+     * Lifetime of an access token.
+     */
+    private final Duration accessTtl;
+
+    /**
+     * Lifetime of a refresh token.
+     */
+    private final Duration refreshTtl;
+
+    private final Clock clock;
+
+    /**
+     * Constructor for initializing the token settings.
+     * In the "jwt" session mode the secret is checked by {@link #checkSecret}.
+     *
+     * @param sessionMode       session mode, "session" or "jwt".
+     * @param secret            HMAC key shared by all nodes.
+     * @param accessTtlMinutes  lifetime of an access token, in minutes.
+     * @param refreshTtlMinutes lifetime of a refresh token, in minutes.
+     * @throws IllegalStateException if the mode is "jwt" and the secret is missing, a placeholder or too short.
+     */
+    @Autowired
+    public JwtTokenService(@Value("${security.session.mode:session}") String sessionMode,
+                           @Value("${security.jwt.secret:}") String secret,
+                           @Value("${security.jwt.access-ttl-minutes:15}") long accessTtlMinutes,
+                           @Value("${security.jwt.refresh-ttl-minutes:10080}") long refreshTtlMinutes) {
+        this("jwt".equals(sessionMode) ? checkSecret(secret) : secret,
+                Duration.ofMinutes(accessTtlMinutes), Duration.ofMinutes(refreshTtlMinutes), Clock.systemUTC());
+    }
+
+    JwtTokenService(String secret, Duration accessTtl, Duration refreshTtl, Clock clock) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the secret if it can sign tokens.
+     *
+     * @param secret HMAC key shared by all nodes.
+     * @return the secret.
+     * @throws IllegalStateException if the secret is missing, a placeholder or shorter than {@value #MIN_SECRET_BYTES} bytes.
+     */
+    static String checkSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("security.jwt.secret must be set in the jwt session mode, " +
+                    "set the JWT_SECRET environment variable");
+        }
+        if (PLACEHOLDER_SECRETS.contains(secret.trim().toLowerCase())) {
+            throw new IllegalStateException("security.jwt.secret is a placeholder, set a random secret");
+        }
+        if (secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("security.jwt.secret must be at least " + MIN_SECRET_BYTES + " bytes long");
+        }
+        return secret;
+    }
+
+    /**
+     * Returns lifetime of an access token.
+     *
+     * @return lifetime of an access token.
+     */
+    public Duration getAccessTtl() {
+        return accessTtl;
+    }
+
+    /**
+     * Returns lifetime of a refresh token.
+     *
+     * @return lifetime of a refresh token.
+     */
+    public Duration getRefreshTtl() {
+        return refreshTtl;
+    }
+
+    /**
+     * Issues an access token with the id, name, email and roles of the user.
+     *
+     * @param user authenticated user.
+     * @return signed access token.
+     */
+    public String createAccessToken(User user) {
+        List<String> roles = user.getRoles() == null ? new ArrayList<>() : user.getRoles().stream()
+                .map(Role::name)
+                .collect(Collectors.toList());
+        return sign(Jwts.claims()
+                .setSubject(user.getUsername())
+                .setExpiration(new Date(clock.millis() + accessTtl.toMillis()))
+                .setIssuedAt(new Date(clock.millis())), ACCESS_TYPE)
+                .claim("uid", user.getId())
+                .claim("email", user.getEmail())
+                .claim("roles", roles)
+                .compact();
+    }
+
+    /**
+     * Issues a refresh token for the user.
+     *
+     * @param user authenticated user.
+     * @return signed refresh token.
+     */
+    public String createRefreshToken(User user) {
+        return sign(Jwts.claims()
+                .setSubject(user.getUsername())
+                .setExpiration(new Date(clock.millis() + refreshTtl.toMillis()))
+                .setIssuedAt(new Date(clock.millis())), REFRESH_TYPE)
+                .compact();
+    }
+
+    /**
+     * Validates an access token and restores the user from its claims.
+     * The restored user is not attached to the database and has no password or cart.
+     *
+     * @param token access token.
+     * @return the user or {@code null} if the token is invalid or expired.
+     */
+    public User parseAccessToken(String token) {
+        Claims claims = parse(token, ACCESS_TYPE);
+
+        if (claims == null) {
+            return null;
+        }
+        User user = new User();
+        Number id = claims.get("uid", Number.class);
+        user.setId(id == null ? null : id.longValue());
+        user.setUsername(claims.getSubject());
+        user.setEmail(claims.get("email", String.class));
+        user.setActive(true);
+        user.setCandleList(new ArrayList<>());
+
+        Set<Role> roles = new HashSet<>();
+        Collection<?> roleNames = claims.get("roles", Collection.class);
+        if (roleNames != null) {
+            for (Object roleName : roleNames) {
+                try {
+                    roles.add(Role.valueOf(roleName.toString()));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        user.setRoles(roles);
+        return user;
+    }
+
+    /**
+     * Validates a refresh token.
+     *
+     * @param token refresh token.
+     * @return name of the user or {@code null} if the token is invalid or expired.
+     */
+    public String parseRefreshToken(String token) {
+        Claims claims = parse(token, REFRESH_TYPE);
+        return claims == null ? null : claims.getSubject();
+    }
+
+    private JwtBuilder sign(Claims claims, String type) {
+        claims.put(TYPE_CLAIM, type);
+        return Jwts.builder()
+                .setClaims(claims)
+                .signWith(SignatureAlgorithm.HS256, secret);
+    }
+
+    private Claims parse(String token, String type) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            Claims claims = Jwts.parser()
+                    .setSigningKey(secret)
+                    .setClock(() -> new Date(clock.millis()))
+                    .parseClaimsJws(token)
+                    .getBody();
+            return type.equals(claims.get(TYPE_CLAIM, String.class)) ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Matches passwords stored before the hashes got an encoder prefix:
+ * bare BCrypt hashes and passwords stored as plain text.
+ * The encoder only matches, such passwords are re-encoded on the next successful login.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+public class LegacyPasswordEncoder implements PasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder();
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        throw new UnsupportedOperationException("Legacy passwords are only matched");
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+            return bCryptPasswordEncoder.matches(rawPassword, encodedPassword);
+        }
+        return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket throttle of login attempts per username and per client address.
+ * The buckets are lock-free: each one keeps the time at which it becomes full again
+ * and an attempt takes a token by moving this time forward with a compare-and-set.
+ * Full buckets carry no state and are removed first once the map grows over its limit,
+ * if that is not enough the map is trimmed to half of the limit.
+ * A capacity or rate of zero or less disables the corresponding check.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Component
+public class LoginThrottle {
+    private final Limit perUsername;
+
+    private final Limit perAddress;
+
+    /**
+     * Maximum number of buckets of each kind kept in memory.
+     */
+    private final int maxKeys;
+
+    private final Clock clock;
+
+    private final Map<String, AtomicLong> usernames = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> addresses = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for initializing the limits.
+     *
+     * @param usernameCapacity  number of attempts per username in a burst.
+     * @param usernamePerMinute number of attempts per username per minute.
+     * @param addressCapacity   number of attempts per client address in a burst.
+     * @param addressPerMinute  number of attempts per client address per minute.
+     * @param maxKeys           maximum number of buckets of each kind kept in memory.
+     */
+    @Autowired
+    public LoginThrottle(@Value("${security.login-throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${security.login-throttle.username.per-minute:5}") double usernamePerMinute,
+                         @Value("${security.login-throttle.address.capacity:30}") int addressCapacity,
+                         @Value("${security.login-throttle.address.per-minute:20}") double addressPerMinute,
+                         @Value("${security.login-throttle.max-keys:100000}") int maxKeys) {
+        this(new Limit(usernameCapacity, usernamePerMinute), new Limit(addressCapacity, addressPerMinute),
+                maxKeys, Clock.systemUTC());
+    }
+
+    LoginThrottle(Limit perUsername, Limit perAddress, int maxKeys, Clock clock) {
+        this.perUsername = perUsername;
+        this.perAddress = perAddress;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for a login attempt from the buckets of the username and of the client address.
+     *
+     * @param username username of the attempt, may be {@code null}.
+     * @param address  client address of the attempt.
+     * @return 0 if the attempt is allowed, otherwise the time in milliseconds after which to try again.
+     */
+    public long tryAcquire(String username, String address) {
+        long nowMs = clock.millis();
+        long wait = take(addresses, address, perAddress, nowMs);
+
+        if (wait == 0 && username != null) {
+            wait = take(usernames, username.trim().toLowerCase(Locale.ROOT), perUsername, nowMs);
+        }
+        return wait;
+    }
+
+    /**
+     * Returns number of buckets in memory.
+     *
+     * @return number of buckets.
+     */
+    int size() {
+        return usernames.size() + addresses.size();
+    }
+
+    private long take(Map<String, AtomicLong> buckets, String key, Limit limit, long nowMs) {
+        if (limit.capacity <= 0 || key == null) {
+            return 0;
+        }
+        AtomicLong fullAt = buckets.get(key);
+
+        if (fullAt == null) {
+            if (buckets.size() >= maxKeys) {
+                evict(buckets, nowMs);
+            }
+            fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(nowMs));
+        }
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowMs) + limit.intervalMs;
+            long wait = next - nowMs - limit.burstMs;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void evict(Map<String, AtomicLong> buckets, long nowMs) {
+        buckets.values().removeIf(fullAt -> fullAt.get() <= nowMs);
+
+        Iterator<AtomicLong> iterator = buckets.values().iterator();
+        while (buckets.size() > maxKeys / 2 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Limit of a kind of bucket.
+     */
+    static class Limit {
+        private final int capacity;
+
+        /**
+         * Time in which one token is restored.
+         */
+        private final long intervalMs;
+
+        /**
+         * Time in which a whole burst is restored.
+         */
+        private final long burstMs;
+
+        Limit(int capacity, double perMinute) {
+            this.capacity = perMinute > 0 ? capacity : 0;
+            this.intervalMs = perMinute > 0 ? Math.max(1, (long) (60_000 / perMinute)) : 0;
+            this.burstMs = intervalMs * Math.max(0, capacity);
+        }
+    }
+}
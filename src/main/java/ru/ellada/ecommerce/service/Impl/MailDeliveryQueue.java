@@ -0,0 +1,459 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous delivery of email messages.
+ * Messages are put to a bounded queue and sent by a fixed pool of workers, this is the only way
+ * messages reach the SMTP server, so every message is throttled and batched.
+ * Each worker takes up to a batch of messages from the queue and sends them over one SMTP session,
+ * messages over the {@link MailThrottle} limits are put back to the queue with a delay.
+ * A failed message is retried with exponential backoff, after the last attempt
+ * or when the queue is full it is moved to the bounded dead-letter store.
+ * The future returned by {@link #submit} reports whether the message was finally sent.
+ * A message submitted with a key is sent once: while it waits in the queue or was recently sent,
+ * submitting the same key again returns the result of the first message instead of a second copy.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see MailSender
+ * @see JavaMailSender
+ */
+@Slf4j
+@Component
+public class MailDeliveryQueue {
+    /**
+     * Implementation of the {@link JavaMailSender} interface
+     * to send messages to email.
+     */
+    private final JavaMailSender javaMailSender;
+
+    /**
+     * Maximum number of messages sent over one SMTP session.
+     */
+    private final int batchSize;
+
+    /**
+     * Number of attempts after which the message is moved to the dead-letter store.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Delay before the first retry, in milliseconds.
+     */
+    private final long initialBackoffMs;
+
+    /**
+     * Maximum number of messages kept in the dead-letter store.
+     */
+    private final int deadLetterCapacity;
+
+    private final MailThrottle throttle;
+
+    private final BlockingQueue<Delivery> queue;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * Messages waiting in the {@link #retryScheduler} for a retry or for the throttle.
+     */
+    private final Set<Delivery> scheduled = ConcurrentHashMap.newKeySet();
+
+    private final Deque<DeadLetter> deadLetters = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger deadLetterCount = new AtomicInteger();
+
+    /**
+     * Results of the keyed messages which are not sent yet, guarded by {@link #sentKeys}.
+     */
+    private final Map<String, CompletableFuture<Void>> pendingKeys = new HashMap<>();
+
+    /**
+     * Keys of the recently sent messages, the oldest are forgotten first.
+     */
+    private final Map<String, Boolean> sentKeys;
+
+    private final Timer sendTimer;
+
+    private final Counter failureCounter;
+
+    private volatile boolean running = true;
+
+    /**
+     * Constructor for initializing the main variables of the mail queue.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param javaMailSender     implementation of the {@link JavaMailSender} interface
+     *                           to send messages to email.
+     * @param meterRegistry      registry of the queue metrics.
+     * @param settings           queue settings.
+     */
+    @Autowired
+    public MailDeliveryQueue(JavaMailSender javaMailSender, MeterRegistry meterRegistry, Settings settings) {
+        this.javaMailSender = javaMailSender;
+        this.batchSize = Math.max(1, settings.batchSize);
+        this.maxAttempts = settings.maxAttempts;
+        this.initialBackoffMs = settings.initialBackoffMs;
+        this.deadLetterCapacity = settings.deadLetterCapacity;
+        this.throttle = new MailThrottle(settings.messagesPerSecond, settings.perDomainPerMinute);
+        this.queue = new ArrayBlockingQueue<>(settings.capacity);
+        this.sentKeys = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > settings.sentKeyCapacity;
+            }
+        };
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("mail-retry-"));
+
+        this.sendTimer = Timer.builder("mail.send")
+                .description("Time to send a batch of email messages over one SMTP session")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("mail.send.failures")
+                .description("Failed attempts to send an email message")
+                .register(meterRegistry);
+        Gauge.builder("mail.queue.depth", queue, BlockingQueue::size)
+                .description("Email messages waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("mail.dead.letters", deadLetterCount, AtomicInteger::get)
+                .description("Email messages in the dead-letter store")
+                .register(meterRegistry);
+
+        ThreadFactory threadFactory = daemonThreads("mail-worker-");
+        for (int i = 0; i < settings.workers; i++) {
+            Thread worker = threadFactory.newThread(this::runWorker);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Puts the message to the queue.
+     *
+     * @param message message to send.
+     * @return future which completes when the message is sent, or completes exceptionally
+     * with {@link MailSendException} when the message is moved to the dead-letter store.
+     */
+    public CompletableFuture<Void> submit(SimpleMailMessage message) {
+        Delivery delivery = new Delivery(message);
+        enqueue(delivery);
+        return delivery.result;
+    }
+
+    /**
+     * Puts the message to the queue unless a message with the same key is waiting or was recently sent.
+     *
+     * @param key     key of the message, e.g. the event which caused it.
+     * @param message message to send.
+     * @return future of the message with this key, completing it does not affect the delivery.
+     */
+    public CompletableFuture<Void> submit(String key, SimpleMailMessage message) {
+        Delivery delivery = new Delivery(message);
+        CompletableFuture<Void> result;
+        synchronized (sentKeys) {
+            if (sentKeys.containsKey(key)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> pending = pendingKeys.get(key);
+            if (pending != null) {
+                return pending.copy();
+            }
+            result = delivery.result.whenComplete((sent, error) -> {
+                synchronized (sentKeys) {
+                    pendingKeys.remove(key);
+                    if (error == null) {
+                        sentKeys.put(key, Boolean.TRUE);
+                    }
+                }
+            });
+            pendingKeys.put(key, result);
+        }
+        enqueue(delivery);
+        return result.copy();
+    }
+
+    /**
+     * Returns messages from the dead-letter store, the oldest first.
+     *
+     * @return list of {@link DeadLetter}.
+     */
+    public List<DeadLetter> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    /**
+     * Returns number of messages waiting in the queue.
+     *
+     * @return queue depth.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the workers, waiting for the messages in the queue to be sent.
+     * Messages still waiting for a retry or in the queue are moved to the dead-letter store.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        retryScheduler.awaitTermination(1, TimeUnit.SECONDS);
+        if (!scheduled.isEmpty()) {
+            log.warn("{} email messages waiting for a retry were not sent before shutdown", scheduled.size());
+            for (Delivery delivery : scheduled) {
+                if (scheduled.remove(delivery)) {
+                    moveToDeadLetters(delivery, "Mail queue was shut down");
+                }
+            }
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} email messages were not sent before shutdown", queue.size());
+            for (Delivery delivery; (delivery = queue.poll()) != null; ) {
+                moveToDeadLetters(delivery, "Mail queue was shut down");
+            }
+        }
+    }
+
+    private boolean enqueue(Delivery delivery) {
+        if (running && queue.offer(delivery)) {
+            return true;
+        }
+        moveToDeadLetters(delivery, "Mail queue is full");
+        return false;
+    }
+
+    private void runWorker() {
+        List<Delivery> drained = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Delivery first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.clear();
+                drained.add(first);
+                queue.drainTo(drained, batchSize - 1);
+
+                List<Delivery> batch = new ArrayList<>(drained.size());
+                long now = System.currentTimeMillis();
+                for (Delivery delivery : drained) {
+                    long delay = running ? throttle.reserve(recipient(delivery), now) : 0;
+                    if (delay > 0) {
+                        schedule(delivery, delay, "throttled");
+                    } else {
+                        batch.add(delivery);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    sendBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Mail worker failed", e);
+            }
+        }
+    }
+
+    private void sendBatch(List<Delivery> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(delivery -> delivery.message).toArray(SimpleMailMessage[]::new);
+        try {
+            sendTimer.record(() -> javaMailSender.send(messages));
+            batch.forEach(delivery -> delivery.result.complete(null));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (Delivery delivery : batch) {
+                if (failed.isEmpty() || failed.containsKey(delivery.message)) {
+                    Exception cause = failed.getOrDefault(delivery.message, e);
+                    retryOrMoveToDeadLetters(delivery, cause);
+                } else {
+                    delivery.result.complete(null);
+                }
+            }
+        } catch (MailException e) {
+            batch.forEach(delivery -> retryOrMoveToDeadLetters(delivery, e));
+        }
+    }
+
+    private void retryOrMoveToDeadLetters(Delivery delivery, Exception e) {
+        failureCounter.increment();
+        int attempts = ++delivery.attempts;
+        if (attempts >= maxAttempts) {
+            moveToDeadLetters(delivery, e.getMessage());
+            return;
+        }
+        long delay = initialBackoffMs << Math.min(attempts - 1, 16);
+        log.warn("Email to {} failed, attempt {} of {}, retry in {} ms",
+                recipient(delivery), attempts, maxAttempts, delay, e);
+        schedule(delivery, delay, e.getMessage());
+    }
+
+    private void schedule(Delivery delivery, long delay, String reason) {
+        scheduled.add(delivery);
+        try {
+            retryScheduler.schedule(() -> {
+                if (scheduled.remove(delivery)) {
+                    enqueue(delivery);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rejected) {
+            if (scheduled.remove(delivery)) {
+                moveToDeadLetters(delivery, reason);
+            }
+        }
+    }
+
+    private void moveToDeadLetters(Delivery delivery, String error) {
+        log.error("Email to {} moved to dead letters after {} attempts: {}",
+                recipient(delivery), delivery.attempts, error);
+        deadLetters.addLast(new DeadLetter(delivery.message, delivery.attempts, error, LocalDateTime.now()));
+        delivery.result.completeExceptionally(new MailSendException(String.valueOf(error)));
+        if (deadLetterCount.incrementAndGet() > deadLetterCapacity && deadLetters.pollFirst() != null) {
+            deadLetterCount.decrementAndGet();
+        }
+    }
+
+    private static String recipient(Delivery delivery) {
+        String[] to = delivery.message.getTo();
+        return to == null || to.length == 0 ? null : to[0];
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Delivery {
+        private final SimpleMailMessage message;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private int attempts;
+
+        private Delivery(SimpleMailMessage message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Settings of the mail queue.
+     */
+    @Component
+    public static class Settings {
+        /**
+         * Maximum number of messages waiting in the queue.
+         */
+        @Value("${mail.queue.capacity:1000}")
+        int capacity = 1000;
+
+        /**
+         * Number of threads sending messages.
+         */
+        @Value("${mail.queue.workers:2}")
+        int workers = 2;
+
+        /**
+         * Maximum number of messages sent over one SMTP session.
+         */
+        @Value("${mail.queue.batch-size:20}")
+        int batchSize = 20;
+
+        /**
+         * Number of attempts after which the message is moved to the dead-letter store.
+         */
+        @Value("${mail.queue.max-attempts:5}")
+        int maxAttempts = 5;
+
+        /**
+         * Delay before the first retry, in milliseconds.
+         */
+        @Value("${mail.queue.initial-backoff-ms:1000}")
+        long initialBackoffMs = 1000;
+
+        /**
+         * Maximum number of messages kept in the dead-letter store.
+         */
+        @Value("${mail.queue.dead-letter-capacity:500}")
+        int deadLetterCapacity = 500;
+
+        /**
+         * Number of keys of the sent messages remembered to skip repeated messages.
+         */
+        @Value("${mail.queue.sent-key-capacity:10000}")
+        int sentKeyCapacity = 10000;
+
+        /**
+         * Overall number of messages per second, zero disables the limit.
+         */
+        @Value("${mail.throttle.messages-per-second:10}")
+        double messagesPerSecond = 10;
+
+        /**
+         * Number of messages per recipient domain per minute, zero disables the limit.
+         */
+        @Value("${mail.throttle.per-domain-per-minute:60}")
+        double perDomainPerMinute = 60;
+    }
+
+    /**
+     * Message which could not be sent.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class DeadLetter {
+        /**
+         * The message.
+         */
+        private final SimpleMailMessage message;
+
+        /**
+         * Number of failed attempts.
+         */
+        private final int attempts;
+
+        /**
+         * Error of the last attempt.
+         */
+        private final String lastError;
+
+        /**
+         * Date and time when the message was moved to the store.
+         */
+        private final LocalDateTime failedAt;
+    }
+}
@@ -6,21 +6,25 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The class of the service layer for working with email.
+ * Messages are delivered asynchronously by the {@link MailDeliveryQueue},
+ * the returned future reports the result of the delivery.
  *
  * @author Govorukhin Dmitriy
  * @version 1.0
  * @see JavaMailSender
  * @see SimpleMailMessage
+ * @see MailDeliveryQueue
  */
 @Service
 public class MailSender {
     /**
-     * Implementation of the {@link JavaMailSender} interface
-     * to send messages to email.
+     * Queue which sends messages to email.
      */
-    private final JavaMailSender mailSender;
+    private final MailDeliveryQueue mailDeliveryQueue;
 
     /**
      * Login user of the SMTP server.
@@ -32,28 +36,48 @@ public class MailSender {
      * Constructor for initializing the main variables of the mail service.
      * The @Autowired annotation will allow Spring to automatically initialize objects.
      *
-     * @param mailSender implementation of the {@link JavaMailSender} interface
-     *                   to send messages to email.
+     * @param mailDeliveryQueue queue which sends messages to email.
      */
     @Autowired
-    public MailSender(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public MailSender(MailDeliveryQueue mailDeliveryQueue) {
+        this.mailDeliveryQueue = mailDeliveryQueue;
+    }
+
+    /**
+     * Puts a message with the specified parameters to the mail queue and returns without waiting for delivery.
+     *
+     * @param emailTo The email address to which the message will be sent.
+     * @param subject Message subject.
+     * @param message Message text.
+     * @return future which completes when the message is sent, or completes exceptionally
+     * when the queue gives up on it.
+     */
+    public CompletableFuture<Void> send(String emailTo, String subject, String message) {
+        return mailDeliveryQueue.submit(createMessage(emailTo, subject, message));
     }
 
     /**
-     * Sends a message with the specified parameters.
+     * Puts a message with the specified parameters to the mail queue once per key.
+     * Used by background jobs which retry the delivery themselves, a retry with the same key
+     * does not send a second copy of a message which is still in the queue or was already sent.
      *
+     * @param key     key of the message, e.g. the event which caused it.
      * @param emailTo The email address to which the message will be sent.
      * @param subject Message subject.
      * @param message Message text.
+     * @return future which completes when the message is sent, or completes exceptionally
+     * when the queue gives up on it.
      */
-    public void send(String emailTo, String subject, String message) {
+    public CompletableFuture<Void> send(String key, String emailTo, String subject, String message) {
+        return mailDeliveryQueue.submit(key, createMessage(emailTo, subject, message));
+    }
+
+    private SimpleMailMessage createMessage(String emailTo, String subject, String message) {
         SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom(username);
         mailMessage.setTo(emailTo);
         mailMessage.setSubject(subject);
         mailMessage.setText(message);
-
-        mailSender.send(mailMessage);
+        return mailMessage;
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token bucket throttle of outgoing email messages.
+ * Limits the overall sending rate and the rate per recipient domain,
+ * so bulk sends stay under the limits of the SMTP provider and of the receiving servers.
+ * A limit of zero or less disables the corresponding check.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see MailDeliveryQueue
+ */
+class MailThrottle {
+    /**
+     * Number of domain buckets after which full buckets are removed.
+     */
+    private static final int MAX_DOMAINS = 10_000;
+
+    private final Bucket global;
+
+    private final double perDomainPerMinute;
+
+    private final Map<String, Bucket> domains = new HashMap<>();
+
+    /**
+     * Constructor for initializing the limits.
+     *
+     * @param messagesPerSecond  overall number of messages per second.
+     * @param perDomainPerMinute number of messages per recipient domain per minute.
+     */
+    MailThrottle(double messagesPerSecond, double perDomainPerMinute) {
+        this.global = messagesPerSecond > 0 ? new Bucket(messagesPerSecond, messagesPerSecond / 1000) : null;
+        this.perDomainPerMinute = perDomainPerMinute;
+    }
+
+    /**
+     * Takes a permit to send a message to the recipient.
+     *
+     * @param recipient recipient email address.
+     * @param nowMs     current time in milliseconds.
+     * @return 0 if the permit is taken, otherwise the time in milliseconds after which to try again.
+     */
+    synchronized long reserve(String recipient, long nowMs) {
+        Bucket domain = null;
+        if (perDomainPerMinute > 0 && recipient != null) {
+            if (domains.size() > MAX_DOMAINS) {
+                domains.values().removeIf(bucket -> bucket.isFull(nowMs));
+            }
+            domain = domains.computeIfAbsent(domainOf(recipient),
+                    key -> new Bucket(perDomainPerMinute, perDomainPerMinute / 60_000));
+        }
+
+        long wait = Math.max(global == null ? 0 : global.waitTime(nowMs), domain == null ? 0 : domain.waitTime(nowMs));
+        if (wait > 0) {
+            return wait;
+        }
+        if (global != null) {
+            global.take();
+        }
+        if (domain != null) {
+            domain.take();
+        }
+        return 0;
+    }
+
+    private static String domainOf(String recipient) {
+        int at = recipient.lastIndexOf('@');
+        return (at >= 0 ? recipient.substring(at + 1) : recipient).toLowerCase();
+    }
+
+    private static class Bucket {
+        private final double capacity;
+        private final double tokensPerMs;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double capacity, double tokensPerMs) {
+            this.capacity = capacity;
+            this.tokensPerMs = tokensPerMs;
+            this.tokens = capacity;
+            this.refilledAt = -1;
+        }
+
+        private void refill(long nowMs) {
+            if (refilledAt >= 0 && nowMs > refilledAt) {
+                tokens = Math.min(capacity, tokens + (nowMs - refilledAt) * tokensPerMs);
+            }
+            refilledAt = Math.max(refilledAt, nowMs);
+        }
+
+        private long waitTime(long nowMs) {
+            refill(nowMs);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMs);
+        }
+
+        private void take() {
+            tokens -= 1;
+        }
+
+        private boolean isFull(long nowMs) {
+            refill(nowMs);
+            return tokens >= capacity;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data source which reports every executed JDBC statement to the {@link StatementListener}s.
+ * Connections and statements of the target data source are wrapped in dynamic proxies which time
+ * the {@code execute} methods and remember the types of the bind parameters, not their values.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see SlowQueryRecorder
+ */
+public class ObservedDataSource extends DelegatingDataSource {
+    /**
+     * Listener of the executed statements.
+     * It is called on the thread which executed the statement.
+     */
+    public interface StatementListener {
+        /**
+         * Called after a statement is executed, successfully or not.
+         *
+         * @param sql            SQL of the statement with placeholders.
+         * @param parameterTypes types of the bind parameters in order, for example {@code [Long, String, null]}.
+         * @param elapsedNanos   time of the execution in nanoseconds.
+         */
+        void afterExecute(String sql, List<String> parameterTypes, long elapsedNanos);
+    }
+
+    private final List<StatementListener> listeners;
+
+    /**
+     * Constructor for initializing the target data source and the listeners.
+     *
+     * @param targetDataSource data source to observe.
+     * @param listeners        listeners of the executed statements.
+     */
+    public ObservedDataSource(DataSource targetDataSource, List<StatementListener> listeners) {
+        super(targetDataSource);
+        this.listeners = new ArrayList<>(listeners);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private void fire(String sql, List<String> parameterTypes, long elapsedNanos) {
+        for (StatementListener listener : listeners) {
+            listener.afterExecute(sql, parameterTypes, elapsedNanos);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ObservedDataSource.invoke(connection, method, args);
+            String name = method.getName();
+
+            if (result instanceof CallableStatement && name.equals("prepareCall")) {
+                return statement(result, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement && name.equals("prepareStatement")) {
+                return statement(result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return statement(result, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object statement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(ObservedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler((Statement) statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+
+        private final String sql;
+
+        private final Map<Integer, String> parameterTypes = new TreeMap<>();
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameterTypes.put((Integer) args[0], parameterType(name, args[1]));
+            } else if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            } else if (name.startsWith("execute")) {
+                String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                List<String> types = parameterTypes.isEmpty() ? Collections.emptyList()
+                        : new ArrayList<>(parameterTypes.values());
+                long start = System.nanoTime();
+                try {
+                    return ObservedDataSource.invoke(statement, method, args);
+                } finally {
+                    fire(executedSql, types, System.nanoTime() - start);
+                }
+            }
+            return ObservedDataSource.invoke(statement, method, args);
+        }
+
+        private String parameterType(String setter, Object value) {
+            if (setter.equals("setNull") || value == null) {
+                return "null";
+            }
+            return setter.equals("setObject") ? value.getClass().getSimpleName() : setter.substring(3);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ru.ellada.ecommerce.domain.Order;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.repos.OrderRepository;
+import ru.ellada.ecommerce.service.OutboxEventHandler;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the order confirmation to the customer email after the order is placed.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEventType#ORDER_PLACED
+ */
+@Component
+public class OrderMailEventHandler implements OutboxEventHandler {
+    /**
+     * Implementation of the {@link OrderRepository} interface
+     * for working with orders with a database.
+     */
+    private final OrderRepository orderRepository;
+
+    /**
+     * Implementation of the {@link MailSender} class
+     * for working with email.
+     */
+    private final MailSender mailSender;
+
+    /**
+     * Constructor for initializing the main variables of the handler.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param orderRepository implementation of the {@link OrderRepository} interface
+     *                        for working with orders with a database.
+     * @param mailSender      implementation of the {@link MailSender} class
+     *                        for working with email.
+     */
+    @Autowired
+    public OrderMailEventHandler(OrderRepository orderRepository, MailSender mailSender) {
+        this.orderRepository = orderRepository;
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    public boolean supports(OutboxEventType eventType) {
+        return eventType == OutboxEventType.ORDER_PLACED;
+    }
+
+    @Override
+    public CompletableFuture<Void> handle(OutboxEvent event) {
+        return orderRepository.findById(event.getAggregateId())
+                .filter(order -> StringUtils.hasText(order.getEmail()))
+                .map(order -> sendConfirmation(event.getDeliveryKey(), order))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+
+    private CompletableFuture<Void> sendConfirmation(String key, Order order) {
+        String message = String.format("Здравствуйте, %s! \n" +
+                        "Ваш заказ №%d на сумму %s руб. принят.",
+                order.getFirstName(),
+                order.getId(),
+                order.getTotalPrice()
+        );
+        return mailSender.send(key, order.getEmail(), "Заказ №" + order.getId(), message);
+    }
+}
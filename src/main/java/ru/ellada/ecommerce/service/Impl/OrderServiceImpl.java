@@ -1,14 +1,23 @@
 package ru.ellada.ecommerce.service.Impl;
 
 import ru.ellada.ecommerce.domain.Order;
+import ru.ellada.ecommerce.domain.OutboxEventType;
 import ru.ellada.ecommerce.domain.User;
 import ru.ellada.ecommerce.repos.OrderRepository;
 import ru.ellada.ecommerce.service.OrderService;
+import ru.ellada.ecommerce.service.OutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import static ru.ellada.ecommerce.repos.OrderSpecifications.*;
+
 /**
  * The service layer class implements the accessor methods of {@link Order} objects
  * in the {@link OrderService} interface database.
@@ -21,6 +30,7 @@ import java.util.List;
  * @see Order
  * @see OrderService
  * @see OrderRepository
+ * @see OutboxService
  */
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -30,16 +40,23 @@ public class OrderServiceImpl implements OrderService {
      */
     private final OrderRepository orderRepository;
 
+    /**
+     * Service object for writing events to the outbox.
+     */
+    private final OutboxService outboxService;
+
     /**
      * Constructor for initializing the main variables of the order service.
      * The @Autowired annotation will allow Spring to automatically initialize objects.
      *
      * @param orderRepository implementation of the {@link OrderRepository} interface
      *                        for working with orders with a database.
+     * @param outboxService   service object for writing events to the outbox.
      */
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository) {
+    public OrderServiceImpl(OrderRepository orderRepository, OutboxService outboxService) {
         this.orderRepository = orderRepository;
+        this.outboxService = outboxService;
     }
 
     /**
@@ -52,15 +69,50 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.findAll();
     }
 
+    /**
+     * Returns list of orders of all users matching the given filter.
+     * Filter parameters which are {@code null} are not applied.
+     * A {@link Page} is a sublist of a list of objects.
+     *
+     * @param dateFrom  the first date of the order.
+     * @param dateTo    the last date of the order.
+     * @param email     prefix of the customer email.
+     * @param city      city of delivery.
+     * @param totalFrom minimum total price.
+     * @param totalTo   maximum total price.
+     * @param pageable  object that specifies the information of the requested page.
+     * @return list of {@link Order}.
+     */
+    @Override
+    public Page<Order> findAll(LocalDate dateFrom, LocalDate dateTo, String email, String city,
+                               Double totalFrom, Double totalTo, Pageable pageable) {
+        Specification<Order> specification = Specification.where(dateFrom(dateFrom))
+                .and(dateTo(dateTo))
+                .and(emailStartsWith(email))
+                .and(cityEquals(city))
+                .and(totalPriceFrom(totalFrom))
+                .and(totalPriceTo(totalTo));
+
+        return orderRepository.findAll(specification, pageable);
+    }
+
     /**
      * Save order info.
+     * A new order writes the {@link OutboxEventType#ORDER_PLACED} event in the same transaction.
      *
      * @param order order object to return.
      * @return The {@link Order} class object which will be saved in the database.
      */
     @Override
+    @Transactional
     public Order save(Order order) {
-        return orderRepository.save(order);
+        boolean isNew = order.getId() == null;
+        Order savedOrder = orderRepository.save(order);
+
+        if (isNew) {
+            outboxService.publish(OutboxEventType.ORDER_PLACED, savedOrder.getId());
+        }
+        return savedOrder;
     }
 
     /**
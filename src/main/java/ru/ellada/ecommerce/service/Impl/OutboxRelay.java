@@ -0,0 +1,56 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ellada.ecommerce.service.OutboxService;
+
+/**
+ * Background relay which drains the outbox.
+ * Runs on the scheduler thread, so request threads never wait for event handlers.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxService
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    /**
+     * Service object for working with outbox events.
+     */
+    private final OutboxService outboxService;
+
+    /**
+     * Number of events claimed at once.
+     */
+    @Value("${outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Constructor for initializing the main variables of the outbox relay.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param outboxService service object for working with outbox events.
+     */
+    @Autowired
+    public OutboxRelay(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    /**
+     * Delivers batches of events until the outbox has no ready events.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.delay-ms:1000}")
+    public void relay() {
+        try {
+            while (outboxService.relayBatch() == batchSize) {
+                log.debug("Outbox batch of {} events delivered", batchSize);
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.repos.OutboxEventRepository;
+import ru.ellada.ecommerce.service.OutboxEventHandler;
+import ru.ellada.ecommerce.service.OutboxService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The service layer class implements the accessor methods of {@link OutboxEvent} objects
+ * in the {@link OutboxService} interface database.
+ * The class is marked with the @Service annotation - an annotation announcing that this class
+ * is a service - a component of the service layer. Service is a subtype of @Component class.
+ * Using this annotation will automatically search for service beans.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEvent
+ * @see OutboxService
+ * @see OutboxEventRepository
+ * @see OutboxEventHandler
+ */
+@Slf4j
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    /**
+     * Maximum delay between delivery attempts.
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    /**
+     * Implementation of the {@link OutboxEventRepository} interface
+     * for working with outbox events with a database.
+     */
+    private final OutboxEventRepository outboxEventRepository;
+
+    /**
+     * Handlers of outbox events.
+     * Resolved on delivery, because the handlers depend on services which publish events.
+     */
+    private final ObjectProvider<OutboxEventHandler> handlers;
+
+    /**
+     * Runs each step of the delivery in its own new transaction.
+     */
+    private final TransactionOperations newTransaction;
+
+    /**
+     * Number of events claimed at once.
+     */
+    private int batchSize;
+
+    /**
+     * Number of failed attempts after which the event is no longer delivered.
+     */
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * Time for which a claimed event is hidden from other relays.
+     * If the relay dies while delivering, the event becomes ready again after this time.
+     */
+    private long leaseSeconds;
+
+    /**
+     * Maximum time the work of the handlers may take before the event is retried, in milliseconds.
+     */
+    private long deliveryTimeoutMs;
+
+    /**
+     * Constructor for initializing the main variables of the outbox service.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param outboxEventRepository implementation of the {@link OutboxEventRepository} interface
+     *                              for working with outbox events with a database.
+     * @param handlers              handlers of outbox events.
+     * @param transactionManager    transaction manager of the database.
+     * @param batchSize             number of events claimed at once.
+     * @param leaseSeconds          time for which a claimed event is hidden from other relays.
+     * @param deliveryTimeoutMs     maximum time the work of the handlers may take, in milliseconds.
+     * @throws IllegalStateException if a batch can take longer than the lease.
+     */
+    @Autowired
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, ObjectProvider<OutboxEventHandler> handlers,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${outbox.relay.batch-size:50}") int batchSize,
+                             @Value("${outbox.relay.lease-seconds:3600}") long leaseSeconds,
+                             @Value("${mail.queue.delivery-timeout-ms:60000}") long deliveryTimeoutMs) {
+        this(outboxEventRepository, handlers, requiresNew(transactionManager));
+        checkLease(batchSize, leaseSeconds, deliveryTimeoutMs);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.deliveryTimeoutMs = deliveryTimeoutMs;
+    }
+
+    OutboxServiceImpl(OutboxEventRepository outboxEventRepository, ObjectProvider<OutboxEventHandler> handlers,
+                      TransactionOperations newTransaction) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.newTransaction = newTransaction;
+    }
+
+    /**
+     * Writes an event to the outbox.
+     * The @Transactional annotation joins the transaction of the caller.
+     *
+     * @param eventType   event type.
+     * @param aggregateId the unique code of the object the event is about.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType eventType, Long aggregateId) {
+        outboxEventRepository.save(new OutboxEvent(eventType, aggregateId));
+    }
+
+    /**
+     * Delivers one batch of ready events to the handlers.
+     * The events are claimed in a short transaction which moves their next attempt past the lease,
+     * so the row locks are not held while the handlers work. Then every event is passed to the handlers
+     * in its own short transaction, the work they return (e.g. sending email) runs after the commit.
+     * When the work completes the event is deleted, when it fails or takes longer than the delivery timeout
+     * the event is retried with exponential backoff, each in its own transaction.
+     * A failing event never rolls back the other events of the batch.
+     *
+     * @return number of events taken from the outbox.
+     */
+    @Override
+    public int relayBatch() {
+        List<Long> claimed = newTransaction.execute(status -> claim());
+        for (Long id : claimed) {
+            CompletableFuture<Void> work;
+            try {
+                work = newTransaction.execute(status -> dispatch(id));
+            } catch (RuntimeException e) {
+                work = CompletableFuture.failedFuture(e);
+            }
+            work.orTimeout(deliveryTimeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> complete(id, error));
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Locks the ready events and hides them from other relays for the lease time.
+     *
+     * @return unique codes of the claimed events.
+     */
+    private List<Long> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxEventRepository.findReadyForDelivery(now, maxAttempts, PageRequest.of(0, batchSize));
+        for (OutboxEvent event : events) {
+            event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        }
+        return events.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Passes the event to the handlers which support its type.
+     *
+     * @param id the unique code of the event.
+     * @return future which completes when all handlers are done.
+     */
+    private CompletableFuture<Void> dispatch(Long id) {
+        return outboxEventRepository.findById(id)
+                .map(event -> CompletableFuture.allOf(handlers.orderedStream()
+                        .filter(handler -> handler.supports(event.getEventType()))
+                        .map(handler -> handler.handle(event))
+                        .toArray(CompletableFuture[]::new)))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Deletes the handled event or schedules the next attempt of the failed one.
+     * An error here leaves the event to be retried after the lease.
+     *
+     * @param id    the unique code of the event.
+     * @param error error of the handlers or {@code null} if they succeeded.
+     */
+    private void complete(Long id, Throwable error) {
+        try {
+            if (error == null) {
+                newTransaction.executeWithoutResult(status ->
+                        outboxEventRepository.findById(id).ifPresent(outboxEventRepository::delete));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                newTransaction.executeWithoutResult(status -> reschedule(id, cause));
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox event id={} could not be completed", id, e);
+        }
+    }
+
+    /**
+     * Records the failed attempt and schedules the next one.
+     *
+     * @param id    the unique code of the event.
+     * @param error error of the attempt.
+     */
+    private void reschedule(Long id, Throwable error) {
+        outboxEventRepository.findById(id).ifPresent(event -> {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(String.valueOf(error.getMessage()));
+            event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+
+            log.warn("Outbox event id={} type={} failed, attempt {} of {}",
+                    event.getId(), event.getEventType(), attempts, maxAttempts, error);
+        });
+    }
+
+    /**
+     * Returns transactions which are always started anew, independently of the caller.
+     *
+     * @param transactionManager transaction manager of the database.
+     * @return transaction template.
+     */
+    private static TransactionOperations requiresNew(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    /**
+     * Checks that the relay does not lose its lease on the events it is still delivering,
+     * otherwise another relay claims them again and they are handled twice.
+     *
+     * @param batchSize         number of events claimed at once.
+     * @param leaseSeconds      time for which a claimed event is hidden from other relays.
+     * @param deliveryTimeoutMs maximum time the work of the handlers may take, in milliseconds.
+     * @throws IllegalStateException if the lease is not longer than a batch of the slowest deliveries.
+     */
+    static void checkLease(int batchSize, long leaseSeconds, long deliveryTimeoutMs) {
+        if (TimeUnit.SECONDS.toMillis(leaseSeconds) <= batchSize * deliveryTimeoutMs) {
+            throw new IllegalStateException("outbox.relay.lease-seconds=" + leaseSeconds
+                    + " has to be longer than outbox.relay.batch-size=" + batchSize
+                    + " times mail.queue.delivery-timeout-ms=" + deliveryTimeoutMs);
+        }
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     *
+     * @param attempts number of failed attempts.
+     * @return delay before the next attempt.
+     */
+    static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 12));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -0,0 +1,249 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded cache of the catalog pages rendered for anonymous users.
+ * Pages are kept gzip compressed and belong to a catalog version, any change of the catalog
+ * starts a new version, so the pages rendered before it are never served again.
+ * Hits and misses are exported as the {@code page.cache} counter.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see CatalogChangedEvent
+ */
+@Component
+public class PageCache {
+    /**
+     * How long a page is kept, it limits staleness when the catalog is changed outside of the application.
+     */
+    private final Duration ttl;
+
+    /**
+     * Maximum number of pages kept in the cache.
+     */
+    private final int maxEntries;
+
+    /**
+     * Maximum total size of the compressed pages in bytes.
+     */
+    private final long maxBytes;
+
+    private final Clock clock;
+
+    private final Map<String, Page> pages = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    /**
+     * Constructor for initializing the cache settings.
+     *
+     * @param ttlSeconds    how long a page is kept, in seconds.
+     * @param maxEntries    maximum number of pages kept in the cache.
+     * @param maxBytes      maximum total size of the compressed pages in bytes.
+     * @param meterRegistry registry of the cache metrics.
+     */
+    @Autowired
+    public PageCache(@Value("${page-cache.ttl-seconds:300}") long ttlSeconds,
+                     @Value("${page-cache.max-entries:2000}") int maxEntries,
+                     @Value("${page-cache.max-bytes:33554432}") long maxBytes,
+                     MeterRegistry meterRegistry) {
+        this(Duration.ofSeconds(ttlSeconds), maxEntries, maxBytes, meterRegistry, Clock.systemUTC());
+    }
+
+    PageCache(Duration ttl, int maxEntries, long maxBytes, MeterRegistry meterRegistry, Clock clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        this.hitCounter = Counter.builder("page.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("page.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.size", pages, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("page.cache.bytes", bytes, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current catalog version, a page rendered now has to be stored with it.
+     *
+     * @return catalog version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the page of the current catalog version.
+     *
+     * @param key normalized URL of the page.
+     * @return cached page or {@code null} if there is none.
+     */
+    public Page get(String key) {
+        Page page = pages.get(key);
+
+        if (page != null && page.version == version.get() && clock.millis() - page.storedAt < ttl.toMillis()) {
+            hitCounter.increment();
+            return page;
+        }
+        missCounter.increment();
+        if (page != null) {
+            remove(key, page);
+        }
+        return null;
+    }
+
+    /**
+     * Stores the rendered page unless the catalog was changed while it was rendered.
+     *
+     * @param key         normalized URL of the page.
+     * @param contentType content type of the page.
+     * @param body        rendered page.
+     * @param version     catalog version taken before the rendering.
+     */
+    public void put(String key, String contentType, byte[] body, long version) {
+        if (version != this.version.get()) {
+            return;
+        }
+        Page page = new Page(contentType, gzip(body), version, clock.millis());
+        if (page.gzipped.length > maxBytes / 4) {
+            return;
+        }
+        evictIfFull(page.gzipped.length);
+        Page previous = pages.put(key, page);
+        bytes.addAndGet(page.gzipped.length - (previous == null ? 0 : previous.gzipped.length));
+    }
+
+    /**
+     * Starts a new catalog version and drops all pages.
+     * Runs after the commit of the transaction that published the event or at once outside of a transaction.
+     *
+     * @param event catalog change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+        pages.clear();
+        bytes.set(0);
+    }
+
+    /**
+     * Returns number of pages in the cache.
+     *
+     * @return number of pages.
+     */
+    int size() {
+        return pages.size();
+    }
+
+    private void remove(String key, Page page) {
+        if (pages.remove(key, page)) {
+            bytes.addAndGet(-page.gzipped.length);
+        }
+    }
+
+    private void evictIfFull(int length) {
+        if (pages.size() < maxEntries && bytes.get() + length <= maxBytes) {
+            return;
+        }
+        long now = clock.millis();
+        pages.forEach((key, page) -> {
+            if (page.version != version.get() || now - page.storedAt >= ttl.toMillis()) {
+                remove(key, page);
+            }
+        });
+
+        Iterator<Map.Entry<String, Page>> entries = pages.entrySet().iterator();
+        while ((pages.size() >= maxEntries || bytes.get() + length > maxBytes) && entries.hasNext()) {
+            Map.Entry<String, Page> entry = entries.next();
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rendered page of a catalog version.
+     */
+    public static class Page {
+        private final String contentType;
+
+        private final byte[] gzipped;
+
+        private final long version;
+
+        private final long storedAt;
+
+        private Page(String contentType, byte[] gzipped, long version, long storedAt) {
+            this.contentType = contentType;
+            this.gzipped = gzipped;
+            this.version = version;
+            this.storedAt = storedAt;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Returns the gzip compressed page, it can be sent as is with {@code Content-Encoding: gzip}.
+         *
+         * @return compressed page.
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        /**
+         * Returns the page for clients which do not accept gzip.
+         *
+         * @return uncompressed page.
+         */
+        public byte[] getBody() {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.Address;
+import javax.mail.AuthenticationFailedException;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * {@link JavaMailSenderImpl} which keeps authenticated SMTP connections open between sends.
+ * All messages passed to one {@code send} call are sent over one connection, the connection
+ * is then returned to the pool instead of being closed. Connections idle for longer than
+ * the idle timeout are closed on the next borrow.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see JavaMailSenderImpl
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    /**
+     * Maximum number of idle connections kept open.
+     */
+    private final int maxIdle;
+
+    /**
+     * Time after which an idle connection is closed, in milliseconds.
+     */
+    private final long idleTimeoutMs;
+
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Constructor for initializing the pool settings.
+     *
+     * @param maxIdle       maximum number of idle connections kept open.
+     * @param idleTimeoutMs time after which an idle connection is closed, in milliseconds.
+     */
+    public PooledJavaMailSender(int maxIdle, long idleTimeoutMs) {
+        this.maxIdle = maxIdle;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Sends the messages over one pooled connection.
+     *
+     * @param mimeMessages     messages to send.
+     * @param originalMessages original messages from which the MIME messages have been created.
+     * @throws MailException in case of failure.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        Transport transport = null;
+
+        for (int i = 0; i < mimeMessages.length; i++) {
+            if (transport == null) {
+                try {
+                    transport = borrow();
+                } catch (AuthenticationFailedException ex) {
+                    throw new MailAuthenticationException(ex);
+                } catch (Exception ex) {
+                    for (int j = i; j < mimeMessages.length; j++) {
+                        failedMessages.put(original(mimeMessages, originalMessages, j), ex);
+                    }
+                    throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                }
+            }
+
+            MimeMessage mimeMessage = mimeMessages[i];
+            try {
+                if (mimeMessage.getSentDate() == null) {
+                    mimeMessage.setSentDate(new Date());
+                }
+                String messageId = mimeMessage.getMessageID();
+                mimeMessage.saveChanges();
+                if (messageId != null) {
+                    mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                }
+                Address[] addresses = mimeMessage.getAllRecipients();
+                transport.sendMessage(mimeMessage, (addresses != null ? addresses : new Address[0]));
+            } catch (Exception ex) {
+                failedMessages.put(original(mimeMessages, originalMessages, i), ex);
+                if (!transport.isConnected()) {
+                    closeQuietly(transport);
+                    transport = null;
+                }
+            }
+        }
+
+        if (transport != null) {
+            release(transport);
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    @Override
+    public void destroy() {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.transport);
+        }
+    }
+
+    /**
+     * Returns number of idle connections.
+     *
+     * @return number of idle connections.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private Transport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            boolean fresh = System.currentTimeMillis() - pooled.releasedAt < idleTimeoutMs;
+            if (fresh && pooled.transport.isConnected()) {
+                return pooled.transport;
+            }
+            closeQuietly(pooled.transport);
+        }
+        return connectTransport();
+    }
+
+    private void release(Transport transport) {
+        if (idle.size() >= maxIdle || !idle.offerFirst(new PooledTransport(transport, System.currentTimeMillis()))) {
+            closeQuietly(transport);
+        }
+    }
+
+    private static Object original(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages, int i) {
+        return originalMessages != null ? originalMessages[i] : mimeMessages[i];
+    }
+
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (Exception ex) {
+            log.debug("Failed to close mail server connection", ex);
+        }
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private final long releasedAt;
+
+        private PooledTransport(Transport transport, long releasedAt) {
+            this.transport = transport;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
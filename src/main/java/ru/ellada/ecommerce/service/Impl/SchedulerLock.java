@@ -0,0 +1,74 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Lock which lets only one instance run a scheduled job at a time.
+ * The lock is a row of the {@code scheduler_lock} table leased until a point in time,
+ * so it does not hold a database connection while the job runs and is released by itself
+ * when the instance holding it dies.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Component
+public class SchedulerLock {
+    private static final String ACQUIRE = "insert into scheduler_lock (name, locked_until, locked_by) " +
+            "values (?, ?, ?) on conflict (name) do update " +
+            "set locked_until = excluded.locked_until, locked_by = excluded.locked_by " +
+            "where scheduler_lock.locked_until <= ?";
+
+    private static final String RELEASE = "update scheduler_lock set locked_until = ? where name = ? and locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Clock clock;
+
+    /**
+     * Name of this instance stored with the lock.
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * Constructor for initializing the lock.
+     *
+     * @param jdbcTemplate JDBC template of the application database.
+     */
+    @Autowired
+    public SchedulerLock(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemUTC());
+    }
+
+    SchedulerLock(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes the lock if it is free or its lease has ended.
+     *
+     * @param name  name of the job.
+     * @param lease how long the lock is held at most.
+     * @return true if the lock is taken.
+     */
+    public boolean tryLock(String name, Duration lease) {
+        long now = clock.millis();
+        return jdbcTemplate.update(ACQUIRE, name, new Timestamp(now + lease.toMillis()), owner, new Timestamp(now)) == 1;
+    }
+
+    /**
+     * Releases the lock taken by this instance.
+     *
+     * @param name name of the job.
+     */
+    public void unlock(String name) {
+        jdbcTemplate.update(RELEASE, new Timestamp(clock.millis()), name, owner);
+    }
+}
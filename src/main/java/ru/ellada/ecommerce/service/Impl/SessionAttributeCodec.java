@@ -0,0 +1,87 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializes the attributes of the shared session store.
+ * Attributes larger than the threshold, such as the security context with the user and the cart,
+ * are Java-serialized and deflated, small ones are stored as they are. The two forms are told apart
+ * by the Java serialization stream header, so attributes written before compression still load.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+public class SessionAttributeCodec {
+    private static final byte STREAM_MAGIC_FIRST = (byte) 0xAC;
+
+    private static final byte STREAM_MAGIC_SECOND = (byte) 0xED;
+
+    /**
+     * Size in bytes from which serialized attributes are deflated.
+     */
+    private final int compressionThreshold;
+
+    private final DefaultSerializer serializer = new DefaultSerializer();
+
+    private final DefaultDeserializer deserializer;
+
+    /**
+     * Constructor for initializing the codec.
+     *
+     * @param compressionThreshold size in bytes from which serialized attributes are deflated.
+     * @param classLoader          class loader of the deserialized attributes.
+     */
+    public SessionAttributeCodec(int compressionThreshold, ClassLoader classLoader) {
+        this.compressionThreshold = compressionThreshold;
+        this.deserializer = new DefaultDeserializer(classLoader);
+    }
+
+    /**
+     * Serializes the attribute.
+     *
+     * @param attribute serializable attribute value.
+     * @return stored bytes of the attribute.
+     */
+    public byte[] serialize(Object attribute) {
+        try {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream(256);
+            serializer.serialize(attribute, serialized);
+            if (serialized.size() < compressionThreshold) {
+                return serialized.toByteArray();
+            }
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(serialized.size() / 2);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+                serialized.writeTo(out);
+            }
+            return compressed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize session attribute", e);
+        }
+    }
+
+    /**
+     * Deserializes the attribute.
+     *
+     * @param bytes stored bytes of the attribute.
+     * @return attribute value.
+     */
+    public Object deserialize(byte[] bytes) {
+        boolean isPlain = bytes.length >= 2 && bytes[0] == STREAM_MAGIC_FIRST && bytes[1] == STREAM_MAGIC_SECOND;
+        try (InputStream in = isPlain ? new ByteArrayInputStream(bytes)
+                : new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return deserializer.deserialize(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize session attribute", e);
+        }
+    }
+}
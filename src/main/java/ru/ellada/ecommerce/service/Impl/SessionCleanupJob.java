@@ -0,0 +1,62 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Removes expired sessions of the shared session store in batches.
+ * A single delete of every expired session after a restart or a quiet night locks many rows
+ * in one long transaction, batches keep each transaction short. Rows locked by another node
+ * running the same job are skipped.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Slf4j
+public class SessionCleanupJob {
+    private static final String DELETE_EXPIRED = "delete from spring_session where primary_id in (" +
+            "select primary_id from spring_session where expiry_time < ? limit ? for update skip locked)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Number of sessions removed in one statement.
+     */
+    private final int batchSize;
+
+    /**
+     * Constructor for initializing the job.
+     *
+     * @param jdbcTemplate JDBC template of the session store database.
+     * @param batchSize    number of sessions removed in one statement.
+     */
+    public SessionCleanupJob(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Removes batches of expired sessions until a batch is not full.
+     *
+     * @return number of removed sessions.
+     */
+    @Scheduled(fixedDelayString = "${session.cleanup.delay-ms:60000}")
+    public int cleanUp() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        try {
+            int batch;
+            do {
+                batch = jdbcTemplate.update(DELETE_EXPIRED, now, batchSize);
+                removed += batch;
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Expired sessions cleanup failed", e);
+        }
+        if (removed > 0) {
+            log.debug("Removed {} expired sessions", removed);
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,135 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ring buffer of the last statements which ran longer than the threshold.
+ * Only the SQL with placeholders and the types of the bind parameters are kept, so no user data
+ * ends up in the buffer. The call site is the first application frame of the executing thread,
+ * it is resolved only for the slow statements.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see ObservedDataSource
+ */
+@Component
+public class SlowQueryRecorder implements ObservedDataSource.StatementListener {
+    private static final String APPLICATION_PACKAGE = "ru.ellada.ecommerce.";
+
+    /**
+     * Statements running at least this long are recorded.
+     */
+    private final long thresholdNanos;
+
+    private final Clock clock;
+
+    private final SlowQuery[] buffer;
+
+    /**
+     * Index of the next slot to write, grows without wrapping.
+     */
+    private long next;
+
+    /**
+     * Constructor for initializing the recorder settings.
+     *
+     * @param thresholdMs statements running at least this long are recorded, in milliseconds.
+     * @param capacity    number of the last slow statements kept.
+     */
+    @Autowired
+    public SlowQueryRecorder(@Value("${jdbc.slow-query.threshold-ms:200}") long thresholdMs,
+                             @Value("${jdbc.slow-query.capacity:100}") int capacity) {
+        this(thresholdMs, capacity, Clock.systemUTC());
+    }
+
+    SlowQueryRecorder(long thresholdMs, int capacity, Clock clock) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.buffer = new SlowQuery[capacity];
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterExecute(String sql, List<String> parameterTypes, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos || buffer.length == 0) {
+            return;
+        }
+        SlowQuery query = new SlowQuery(sql, parameterTypes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                clock.instant(), callSite());
+        synchronized (buffer) {
+            buffer[(int) (next++ % buffer.length)] = query;
+        }
+    }
+
+    /**
+     * Returns the recorded statements, the latest first.
+     *
+     * @return slow statements.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (buffer) {
+            int size = (int) Math.min(next, buffer.length);
+            List<SlowQuery> queries = new ArrayList<>(size);
+            for (long i = next - 1; i >= next - size; i--) {
+                queries.add(buffer[(int) (i % buffer.length)]);
+            }
+            return queries;
+        }
+    }
+
+    /**
+     * Removes all recorded statements.
+     */
+    public void clear() {
+        synchronized (buffer) {
+            Arrays.fill(buffer, null);
+            next = 0;
+        }
+    }
+
+    private static String callSite() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith(APPLICATION_PACKAGE)
+                    && !className.startsWith(ObservedDataSource.class.getName())
+                    && !className.equals(SlowQueryRecorder.class.getName())
+                    && !className.contains("$$")) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Statement which ran longer than the threshold.
+     */
+    @Getter
+    public static class SlowQuery {
+        private final String sql;
+
+        private final List<String> parameterTypes;
+
+        private final long durationMs;
+
+        private final Instant executedAt;
+
+        private final String callSite;
+
+        SlowQuery(String sql, List<String> parameterTypes, long durationMs, Instant executedAt, String callSite) {
+            this.sql = sql;
+            this.parameterTypes = parameterTypes;
+            this.durationMs = durationMs;
+            this.executedAt = executedAt;
+            this.callSite = callSite;
+        }
+    }
+}
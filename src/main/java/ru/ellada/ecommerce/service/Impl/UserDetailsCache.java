@@ -0,0 +1,184 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.UserChangedEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the users loaded for authentication.
+ * Entries live for a short time and are dropped after the transaction that changed the user commits,
+ * so a stale user can not be cached again by a login running during that transaction.
+ * The cache keeps its own copy of the user and every hit returns a new copy, because the user becomes
+ * the principal of the request and controllers change it, for example the cart of the user.
+ * Hits and misses are exported as the {@code user.details.cache} counter.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see UserChangedEvent
+ */
+@Component
+public class UserDetailsCache {
+    /**
+     * How long a user is kept in the cache.
+     */
+    private final Duration ttl;
+
+    /**
+     * Maximum number of users kept in the cache.
+     */
+    private final int maxSize;
+
+    private final Clock clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Number of invalidations, a user loaded while an invalidation happened is not cached.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    /**
+     * Constructor for initializing the cache settings.
+     *
+     * @param ttlSeconds    how long a user is kept in the cache, in seconds.
+     * @param maxSize       maximum number of users kept in the cache.
+     * @param meterRegistry registry of the cache metrics.
+     */
+    @Autowired
+    public UserDetailsCache(@Value("${security.user-cache.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${security.user-cache.max-size:10000}") int maxSize,
+                            MeterRegistry meterRegistry) {
+        this(Duration.ofSeconds(ttlSeconds), maxSize, meterRegistry, Clock.systemUTC());
+    }
+
+    UserDetailsCache(Duration ttl, int maxSize, MeterRegistry meterRegistry, Clock clock) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.hitCounter = Counter.builder("user.details.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("user.details.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("user.details.cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached user or loads it, a user that is not found is not cached.
+     *
+     * @param username user name to return.
+     * @param loader   loads the user from the database.
+     * @return The {@link User} class object, not shared with other callers,
+     * or {@code null} if the user is not found.
+     */
+    public User get(String username, Function<String, User> loader) {
+        long now = clock.millis();
+        Entry entry = entries.get(username);
+
+        if (entry != null && now - entry.loadedAt < ttl.toMillis()) {
+            hitCounter.increment();
+            return copy(entry.user);
+        }
+        missCounter.increment();
+        long invalidationsBeforeLoad = invalidations.get();
+        User user = loader.apply(username);
+
+        if (user != null && invalidations.get() == invalidationsBeforeLoad) {
+            evictIfFull(now);
+            entries.put(username, new Entry(copy(user), now));
+        } else if (user == null && entry != null) {
+            entries.remove(username, entry);
+        }
+        return user;
+    }
+
+    /**
+     * Drops the changed user from the cache.
+     * Runs after the commit of the transaction that published the event or at once outside of a transaction.
+     *
+     * @param event event with the names of the changed user.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidations.incrementAndGet();
+        for (String username : event.getUsernames()) {
+            if (username != null) {
+                entries.remove(username);
+            }
+        }
+    }
+
+    /**
+     * Returns number of users in the cache.
+     *
+     * @return number of users.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.values().removeIf(e -> now - e.loadedAt >= ttl.toMillis());
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Returns a detached copy of the user with its own collections.
+     *
+     * @param user the user to copy.
+     * @return copy of the user.
+     */
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setActive(user.isActive());
+        copy.setActivationCode(user.getActivationCode());
+        copy.setRoles(user.getRoles() == null ? null : new HashSet<>(user.getRoles()));
+        copy.setCandleList(user.getCandleList() == null ? null : new ArrayList<>(user.getCandleList()));
+        return copy;
+    }
+
+    private static class Entry {
+        private final User user;
+
+        private final long loadedAt;
+
+        private Entry(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.repos.UserRepository;
+import ru.ellada.ecommerce.service.OutboxEventHandler;
+import ru.ellada.ecommerce.service.UserService;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the activation code to the user email after registration or email change.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEventType#USER_REGISTERED
+ * @see OutboxEventType#USER_EMAIL_CHANGED
+ */
+@Component
+public class UserMailEventHandler implements OutboxEventHandler {
+    /**
+     * Implementation of the {@link UserRepository} interface
+     * for working with users with a database.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Service object for working with users.
+     */
+    private final UserService userService;
+
+    /**
+     * Constructor for initializing the main variables of the handler.
+     * The @Autowired annotation will allow Spring to automatically initialize objects.
+     *
+     * @param userRepository implementation of the {@link UserRepository} interface
+     *                       for working with users with a database.
+     * @param userService    service object for working with users.
+     */
+    @Autowired
+    public UserMailEventHandler(UserRepository userRepository, UserService userService) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean supports(OutboxEventType eventType) {
+        return eventType == OutboxEventType.USER_REGISTERED || eventType == OutboxEventType.USER_EMAIL_CHANGED;
+    }
+
+    @Override
+    public CompletableFuture<Void> handle(OutboxEvent event) {
+        return userRepository.findById(event.getAggregateId())
+                .map(user -> userService.sendMessage(user, event.getDeliveryKey()))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+}
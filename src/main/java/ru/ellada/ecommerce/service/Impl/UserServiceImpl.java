@@ -1,22 +1,32 @@
 package ru.ellada.ecommerce.service.Impl;
 
+import ru.ellada.ecommerce.domain.OutboxEventType;
 import ru.ellada.ecommerce.domain.PasswordResetToken;
 import ru.ellada.ecommerce.domain.Role;
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.domain.dto.UserSummaryDto;
 import ru.ellada.ecommerce.repos.PasswordResetTokenRepository;
 import ru.ellada.ecommerce.repos.UserRepository;
+import ru.ellada.ecommerce.service.OutboxService;
+import ru.ellada.ecommerce.service.UserChangedEvent;
 import ru.ellada.ecommerce.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -31,11 +41,14 @@ import java.util.stream.Collectors;
  * @see User
  * @see UserService
  * @see UserDetailsService
+ * @see UserDetailsPasswordService
  * @see UserRepository
  * @see MailSender
+ * @see OutboxService
+ * @see UserDetailsCache
  */
 @Service
-public class UserServiceImpl implements UserDetailsService, UserService {
+public class UserServiceImpl implements UserDetailsService, UserDetailsPasswordService, UserService {
     /**
      * Implementation of the {@link UserRepository} interface
      * for working with users with a database.
@@ -54,6 +67,21 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      */
     private final PasswordEncoder passwordEncoder;
 
+    /**
+     * Service object for writing events to the outbox.
+     */
+    private final OutboxService outboxService;
+
+    /**
+     * Cache of the users loaded for authentication.
+     */
+    private final UserDetailsCache userDetailsCache;
+
+    /**
+     * Publisher of the {@link UserChangedEvent} which invalidates the cached user.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Host name.
      */
@@ -76,16 +104,25 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      *                        for working with email.
      * @param passwordEncoder implementation of the {@link PasswordEncoder} interface
      *                        for encoding passwords.
+     * @param outboxService   service object for writing events to the outbox.
+     * @param userDetailsCache cache of the users loaded for authentication.
+     * @param eventPublisher  publisher of the {@link UserChangedEvent}.
      */
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, MailSender mailSender, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, MailSender mailSender, PasswordEncoder passwordEncoder,
+                           OutboxService outboxService, UserDetailsCache userDetailsCache,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.mailSender = mailSender;
         this.passwordEncoder = passwordEncoder;
+        this.outboxService = outboxService;
+        this.userDetailsCache = userDetailsCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Locates the user based on the username.
+     * The user is taken from the {@link UserDetailsCache}, so repeated logins do not query the database.
      *
      * @param username the username identifying the user whose data is required.
      *
@@ -96,7 +133,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException, LockedException {
-        User user = userRepository.findByUsername(username);
+        User user = userDetailsCache.get(username, userRepository::findByUsername);
 
         if (user == null) {
             throw new UsernameNotFoundException("User not found");
@@ -109,13 +146,39 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         return user;
     }
 
+    /**
+     * Stores the password re-encoded after a successful login.
+     * Spring Security calls it when the stored hash is outdated: a plain text password,
+     * a hash without the encoder prefix or a BCrypt hash weaker than the configured strength.
+     *
+     * @param userDetails the user who has logged in.
+     * @param newPassword the password encoded with the current encoder.
+     * @return the user with the new password.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername());
+
+        if (user == null) {
+            return userDetails;
+        }
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+        return user;
+    }
+
     /**
      * Return true if user is not exists.
+     * The activation code is sent by the {@link OutboxEventType#USER_REGISTERED} event
+     * written in the same transaction.
      *
      * @param user user who has registered.
      * @return true if the user is not exists.
      */
     @Override
+    @Transactional
     public boolean addUser(User user) {
         User userFromDb = userRepository.findByUsername(user.getUsername());
 
@@ -127,17 +190,20 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         user.setActivationCode(UUID.randomUUID().toString());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         userRepository.save(user);
-        sendMessage(user);
+        outboxService.publish(OutboxEventType.USER_REGISTERED, user.getId());
         return true;
     }
 
     /**
      * Send message to user email with activation code.
+     * The mail queue sends the message once per key, the outbox relay retries it on failure.
      *
      * @param user the user to whom a message with an activation code will be sent to email.
+     * @param key  key of the message, a message with the same key is sent once.
+     * @return future which completes when the message is sent.
      */
     @Override
-    public void sendMessage(User user) {
+    public CompletableFuture<Void> sendMessage(User user, String key) {
         if (!StringUtils.isEmpty(user.getEmail())) {
             String message = String.format("Привет, %s! \n " +
                     "Добро пожаловать в интернет магазин Ellada Cosmetic" +
@@ -146,8 +212,9 @@ public class UserServiceImpl implements UserDetailsService, UserService {
                     hostname,
                     user.getActivationCode()
             );
-            mailSender.send(user.getEmail(), "Activation code", message);
+            return mailSender.send(key, user.getEmail(), "Activation code", message);
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -166,6 +233,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         user.setActivationCode(null);
         user.setActive(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
         return true;
     }
 
@@ -179,6 +247,31 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Returns a page of summaries of registered users without their carts.
+     * The roles of the whole page are loaded by one additional query.
+     *
+     * @param search   prefix of the user name or email, {@code null} returns all users.
+     * @param pageable object that specifies the information of the requested page.
+     * @return page of {@link UserSummaryDto}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserSummaryDto> findAll(String search, Pageable pageable) {
+        Page<UserSummaryDto> page = StringUtils.hasText(search)
+                ? userRepository.searchSummaries(escapeLike(search.trim().toLowerCase()) + "%", pageable)
+                : userRepository.findSummaries(pageable);
+
+        if (page.hasContent()) {
+            Map<Long, UserSummaryDto> users = page.getContent().stream()
+                    .collect(Collectors.toMap(UserSummaryDto::getId, user -> user));
+            for (Object[] userRole : userRepository.findRolesByUserIds(users.keySet())) {
+                users.get((Long) userRole[0]).getRoles().add((Role) userRole[1]);
+            }
+        }
+        return page;
+    }
+
     /**
      * Save updated user with set of roles.
      *
@@ -188,6 +281,7 @@ public class UserServiceImpl implements UserDetailsService, UserService {
      */
     @Override
     public void userSave(String username, Map<String, String> form, User user) {
+        String oldUsername = user.getUsername();
         user.setUsername(username);
         Set<String> roles = Arrays.stream(Role.values())
                 .map(Role::name)
@@ -199,16 +293,20 @@ public class UserServiceImpl implements UserDetailsService, UserService {
             }
         }
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(oldUsername, username));
     }
 
     /**
      * Save updated user profile with new password or email.
+     * If the email is changed, the activation code is sent by the {@link OutboxEventType#USER_EMAIL_CHANGED}
+     * event written in the same transaction.
      *
      * @param user      user from the database.
      * @param password  the user's password to be changed.
      * @param email     the user's email to be changed.
      */
     @Override
+    @Transactional
     public void updateProfile(User user, String password, String email) {
         String userEmail = user.getEmail();
         boolean isEmailChanged = (email != null && !email.equals(userEmail)) ||
@@ -223,9 +321,10 @@ public class UserServiceImpl implements UserDetailsService, UserService {
             user.setPassword(passwordEncoder.encode(password));
         }
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
 
         if (isEmailChanged) {
-            sendMessage(user);
+            outboxService.publish(OutboxEventType.USER_EMAIL_CHANGED, user.getId());
         }
     }
 
@@ -265,13 +364,16 @@ public class UserServiceImpl implements UserDetailsService, UserService {
 
     /**
      * Save user info.
+     * The cached user is invalidated, as the saved cart or password would be stale in it.
      *
      * @param user user object to return.
      * @return The {@link User} class object which will be saved in the database.
      */
     @Override
     public User save(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getUsername()));
+        return savedUser;
     }
 
     @Override
@@ -279,4 +381,8 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         final PasswordResetToken myToken = new PasswordResetToken(token, user);
         passwordTokenRepository.save(myToken);
     }
-}
\ No newline at end of file
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
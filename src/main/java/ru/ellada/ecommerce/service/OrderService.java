@@ -1,9 +1,12 @@
 package ru.ellada.ecommerce.service;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import ru.ellada.ecommerce.domain.Order;
 import ru.ellada.ecommerce.domain.User;
 import ru.ellada.ecommerce.service.Impl.OrderServiceImpl;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -22,6 +25,23 @@ public interface OrderService {
      */
     List<Order> findAll();
 
+    /**
+     * Returns list of orders of all users matching the given filter.
+     * Filter parameters which are {@code null} are not applied.
+     * A {@link Page} is a sublist of a list of objects.
+     *
+     * @param dateFrom  the first date of the order.
+     * @param dateTo    the last date of the order.
+     * @param email     prefix of the customer email.
+     * @param city      city of delivery.
+     * @param totalFrom minimum total price.
+     * @param totalTo   maximum total price.
+     * @param pageable  object that specifies the information of the requested page.
+     * @return list of {@link Order}.
+     */
+    Page<Order> findAll(LocalDate dateFrom, LocalDate dateTo, String email, String city,
+                        Double totalFrom, Double totalTo, Pageable pageable);
+
     /**
      * Save order info.
      *
@@ -0,0 +1,36 @@
+package ru.ellada.ecommerce.service;
+
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handler of outbox events.
+ * Events are delivered at least once, so handlers have to tolerate repeated delivery,
+ * e.g. by keying their work on {@link OutboxEvent#getDeliveryKey()}.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEvent
+ * @see OutboxService
+ */
+public interface OutboxEventHandler {
+    /**
+     * Returns true if the handler handles events of the given type.
+     *
+     * @param eventType event type.
+     * @return true if events of this type are handled.
+     */
+    boolean supports(OutboxEventType eventType);
+
+    /**
+     * Handles the event in the delivery transaction and returns the work which continues after it,
+     * such as sending email, so slow work does not keep the transaction open.
+     * Throwing an exception or completing the future exceptionally schedules a retry.
+     *
+     * @param event event from the outbox.
+     * @return future which completes when the event is handled.
+     */
+    CompletableFuture<Void> handle(OutboxEvent event);
+}
@@ -0,0 +1,31 @@
+package ru.ellada.ecommerce.service;
+
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.service.Impl.OutboxServiceImpl;
+
+/**
+ * The service layer interface describes a set of methods for working with objects of the {@link OutboxEvent} class.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ * @see OutboxEvent
+ * @see OutboxServiceImpl
+ */
+public interface OutboxService {
+    /**
+     * Writes an event to the outbox.
+     * Must be called inside the transaction which changes the aggregate.
+     *
+     * @param eventType   event type.
+     * @param aggregateId the unique code of the object the event is about.
+     */
+    void publish(OutboxEventType eventType, Long aggregateId);
+
+    /**
+     * Delivers one batch of ready events to the handlers.
+     *
+     * @return number of events taken from the outbox.
+     */
+    int relayBatch();
+}
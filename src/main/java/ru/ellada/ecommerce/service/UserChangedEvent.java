@@ -0,0 +1,27 @@
+package ru.ellada.ecommerce.service;
+
+import lombok.Getter;
+
+/**
+ * Application event published when a user record is changed.
+ * Listeners holding copies of the user, such as the user details cache, drop them on this event.
+ *
+ * @author Govorukhin Dmitriy
+ * @version 1.0
+ */
+@Getter
+public class UserChangedEvent {
+    /**
+     * Names under which the user could be cached, the old name is included when the user is renamed.
+     */
+    private final String[] usernames;
+
+    /**
+     * Constructor for initializing the names of the changed user.
+     *
+     * @param usernames names under which the user could be cached.
+     */
+    public UserChangedEvent(String... usernames) {
+        this.usernames = usernames;
+    }
+}
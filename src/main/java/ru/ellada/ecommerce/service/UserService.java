@@ -1,10 +1,14 @@
 package ru.ellada.ecommerce.service;
 
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.domain.dto.UserSummaryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import ru.ellada.ecommerce.service.Impl.UserServiceImpl;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The service layer interface describes a set of methods for working with objects of the {@link User} class.
@@ -35,8 +39,10 @@ public interface UserService {
      * Send message to user email with activation code.
      *
      * @param user the user to whom a message with an activation code will be sent to email.
+     * @param key  key of the message, a message with the same key is sent once.
+     * @return future which completes when the message is sent.
      */
-    void sendMessage(User user);
+    CompletableFuture<Void> sendMessage(User user, String key);
 
     /**
      * Return list of all registered users.
@@ -45,6 +51,15 @@ public interface UserService {
      */
     List<User> findAll();
 
+    /**
+     * Returns a page of summaries of registered users without their carts.
+     *
+     * @param search   prefix of the user name or email, {@code null} returns all users.
+     * @param pageable object that specifies the information of the requested page.
+     * @return page of {@link UserSummaryDto}.
+     */
+    Page<UserSummaryDto> findAll(String search, Pageable pageable);
+
     /**
      * Save updated user with set of roles.
      *
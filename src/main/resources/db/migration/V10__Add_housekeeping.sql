@@ -0,0 +1,11 @@
+alter table usr add column if not exists created_at timestamp not null default now();
+
+create index if not exists usr_unactivated_created_at_idx on usr (created_at) where active = false;
+
+create table if not exists scheduler_lock
+(
+    name         varchar(64)  not null,
+    locked_until timestamp    not null,
+    locked_by    varchar(255) not null,
+    primary key (name)
+);
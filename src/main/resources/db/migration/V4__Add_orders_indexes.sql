@@ -0,0 +1,4 @@
+create index if not exists orders_date_idx on orders (date);
+create index if not exists orders_email_idx on orders (lower(email) varchar_pattern_ops);
+create index if not exists orders_city_idx on orders (lower(city));
+create index if not exists orders_total_price_idx on orders (total_price);
@@ -0,0 +1,13 @@
+create table outbox_event
+(
+    id              int8 generated by default as identity,
+    event_type      varchar(64) not null,
+    aggregate_id    int8        not null,
+    created_at      timestamp   not null,
+    next_attempt_at timestamp   not null,
+    attempts        int4        not null default 0,
+    last_error      varchar(1024),
+    primary key (id)
+);
+
+create index outbox_event_next_attempt_at_idx on outbox_event (next_attempt_at);
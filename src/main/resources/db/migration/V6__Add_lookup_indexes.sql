@@ -0,0 +1,27 @@
+create table if not exists password_reset_token
+(
+    id          int8 not null,
+    token       varchar(255),
+    expiry_date timestamp,
+    user_id     int8 not null,
+    primary key (id)
+);
+
+alter table if exists password_reset_token
+    drop constraint if exists password_reset_token_user_fk;
+
+alter table if exists password_reset_token
+    add constraint password_reset_token_user_fk
+        foreign key (user_id) references usr;
+
+create unique index if not exists usr_username_uidx on usr (username);
+create unique index if not exists usr_activation_code_uidx on usr (activation_code);
+create index if not exists usr_email_idx on usr (email);
+
+create index if not exists user_role_user_id_idx on user_role (user_id);
+create index if not exists usr_candle_list_user_id_idx on usr_candle_list (user_id);
+create index if not exists orders_user_id_idx on orders (user_id);
+
+create unique index if not exists password_reset_token_token_uidx on password_reset_token (token);
+create index if not exists password_reset_token_user_id_idx on password_reset_token (user_id);
+create index if not exists password_reset_token_expiry_date_idx on password_reset_token (expiry_date);
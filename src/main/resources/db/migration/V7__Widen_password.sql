@@ -0,0 +1 @@
+alter table usr alter column password type varchar(255);
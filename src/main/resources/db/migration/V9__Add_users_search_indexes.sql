@@ -0,0 +1,2 @@
+create index if not exists usr_username_prefix_idx on usr (lower(username) varchar_pattern_ops);
+create index if not exists usr_email_prefix_idx on usr (lower(email) varchar_pattern_ops);
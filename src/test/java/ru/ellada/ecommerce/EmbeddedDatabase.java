@@ -0,0 +1,109 @@
+package ru.ellada.ecommerce;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded PostgreSQL shared by the tests which need a real database.
+ * It is started once per test run and dropped with the JVM, Flyway migrates it when the first
+ * application context starts. Tests register it in their context with
+ *
+ * <pre>
+ * &#64;DynamicPropertySource
+ * static void database(DynamicPropertyRegistry registry) {
+ *     EmbeddedDatabase.register(registry);
+ * }
+ * </pre>
+ *
+ * Test data should use unique names, the database is shared by all test classes.
+ * Tests which fill tables with bulk data register a database of their own with
+ * {@link #register(DynamicPropertyRegistry, String)}.
+ */
+public final class EmbeddedDatabase {
+    private static EmbeddedPostgres postgres;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Returns the JDBC URL of the database, starting it on the first call.
+     *
+     * @return JDBC URL.
+     */
+    public static String getJdbcUrl() {
+        return getJdbcUrl("postgres");
+    }
+
+    /**
+     * Returns the JDBC URL of the given database, creating it on the first call.
+     *
+     * @param databaseName name of the database.
+     * @return JDBC URL.
+     */
+    public static synchronized String getJdbcUrl(String databaseName) {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can not start the embedded PostgreSQL", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the process is exiting anyway
+                }
+            }));
+        }
+        if (!databaseName.equals("postgres")) {
+            createDatabase(databaseName);
+        }
+        return postgres.getJdbcUrl("postgres", databaseName);
+    }
+
+    /**
+     * Points the datasource of the application context to the embedded database.
+     *
+     * @param registry properties of the test context.
+     */
+    public static void register(DynamicPropertyRegistry registry) {
+        register(registry, "postgres");
+    }
+
+    /**
+     * Points the datasource of the application context to a separate database of the embedded server.
+     *
+     * @param registry     properties of the test context.
+     * @param databaseName name of the database, it is created if it does not exist.
+     */
+    public static void register(DynamicPropertyRegistry registry, String databaseName) {
+        registry.add("spring.datasource.url", () -> getJdbcUrl(databaseName));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    private static void createDatabase(String databaseName) {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement exists = connection.prepareStatement("select 1 from pg_database where datname = ?")) {
+            exists.setString(1, databaseName);
+            try (ResultSet resultSet = exists.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create database \"" + databaseName + "\"");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Can not create the database " + databaseName, e);
+        }
+    }
+}
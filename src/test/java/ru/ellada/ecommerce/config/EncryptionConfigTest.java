@@ -0,0 +1,44 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionConfigTest {
+    private final PasswordEncoder passwordEncoder = EncryptionConfig.createDelegatingPasswordEncoder(6);
+
+    @Test
+    public void newPasswordsAreBcryptHashes() {
+        String hash = passwordEncoder.encode("password");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$06$"));
+        assertTrue(passwordEncoder.matches("password", hash));
+        assertFalse(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    public void plainTextPasswordsMatchAndAreUpgraded() {
+        assertTrue(passwordEncoder.matches("1234", "1234"));
+        assertFalse(passwordEncoder.matches("12345", "1234"));
+        assertTrue(passwordEncoder.upgradeEncoding("1234"));
+    }
+
+    @Test
+    public void unprefixedBcryptHashesMatchAndAreUpgraded() {
+        String hash = new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(passwordEncoder.matches("password", hash));
+        assertFalse(passwordEncoder.matches(hash, hash));
+        assertTrue(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    public void weakerBcryptHashesAreUpgraded() {
+        String hash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(passwordEncoder.matches("password", hash));
+        assertTrue(passwordEncoder.upgradeEncoding(hash));
+    }
+}
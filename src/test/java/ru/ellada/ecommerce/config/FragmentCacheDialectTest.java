@@ -0,0 +1,97 @@
+package ru.ellada.ecommerce.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+import ru.ellada.ecommerce.service.Impl.FragmentCache;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentCacheDialectTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FragmentCache fragmentCache = new FragmentCache(true, 100, meterRegistry);
+
+    private final MockServletContext servletContext = new MockServletContext();
+
+    private final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+
+    @BeforeEach
+    public void setUp() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new FragmentCacheDialect(fragmentCache));
+    }
+
+    @Test
+    public void cardIsRenderedOnceAndTakenFromCache() {
+        Candle candle = candle("Lavender");
+
+        String first = render(candle);
+        String second = render(candle);
+
+        assertEquals(first, second);
+        assertTrue(first.contains("Lavender"));
+        assertTrue(first.contains("/product/7"));
+        assertEquals(1, meterRegistry.counter("fragment.cache", "result", "hit").count());
+    }
+
+    @Test
+    public void changedCandleIsRenderedAfterCatalogChange() {
+        render(candle("Lavender"));
+
+        fragmentCache.onCatalogChanged(new CatalogChangedEvent());
+
+        assertTrue(render(candle("Vanilla")).contains("Vanilla"));
+    }
+
+    @Test
+    public void cachedCardHasNoSessionId() {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/menu");
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public String encodeURL(String url) {
+                return url + ";jsessionid=secret";
+            }
+        };
+        WebContext context = new WebContext(request, response, servletContext, Locale.ROOT,
+                Collections.singletonMap("candle", candle("Lavender")));
+
+        String card = templateEngine.process("fragmentCacheTest", context);
+
+        assertFalse(card.contains("jsessionid"));
+    }
+
+    private String render(Candle candle) {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/menu");
+        WebContext context = new WebContext(request, new MockHttpServletResponse(), servletContext, Locale.ROOT,
+                Collections.singletonMap("candle", candle));
+        return templateEngine.process("fragmentCacheTest", context);
+    }
+
+    private Candle candle(String title) {
+        Candle candle = new Candle();
+        candle.setId(7L);
+        candle.setCandleTitle(title);
+        candle.setFilename("7.jpg");
+        candle.setPrice(1500);
+        return candle;
+    }
+}
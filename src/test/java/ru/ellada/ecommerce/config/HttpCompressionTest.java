@@ -0,0 +1,292 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.web.servlet.TomcatServletWebServerFactoryCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.StreamUtils;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.repos.CandleRepository;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+import ru.ellada.ecommerce.service.Impl.PageCache;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the embedded Tomcat with the {@code server.*} settings of the default and the production profile
+ * and checks the encoded sizes of the store pages and of {@code style.css}.
+ * The {@link Application} cases check the pages rendered by the controllers and replayed by the page cache.
+ */
+class HttpCompressionTest {
+    private WebServer webServer;
+
+    @AfterEach
+    public void tearDown() {
+        if (webServer != null) {
+            webServer.stop();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "production"})
+    public void textResponsesAreCompressed(String profile) throws Exception {
+        HttpClient client = start(profile);
+        byte[] page = new ClassPathResource("templates/menu.html").getInputStream().readAllBytes();
+        byte[] css = new ClassPathResource("static/style.css").getInputStream().readAllBytes();
+
+        HttpResponse<byte[]> pageResponse = get(client, "/menu");
+        HttpResponse<byte[]> cssResponse = get(client, "/static/style.css");
+
+        assertEquals("gzip", pageResponse.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(pageResponse.body().length < page.length / 3,
+                "menu.html is " + pageResponse.body().length + " of " + page.length + " bytes");
+        assertArrayEquals(page, gunzip(pageResponse.body()));
+
+        assertEquals("gzip", cssResponse.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(cssResponse.body().length < css.length / 3,
+                "style.css is " + cssResponse.body().length + " of " + css.length + " bytes");
+        assertArrayEquals(css, gunzip(cssResponse.body()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "production"})
+    public void h2cUpgradeIsDeclined(String profile) throws Exception {
+        HttpResponse<byte[]> response = get(start(profile), "/menu");
+
+        assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "production"})
+    public void formPostSurvivesUpgradeRequest(String profile) throws Exception {
+        HttpResponse<byte[]> response = postForm(start(profile), webServer.getPort(), "/echo", "text=" + "candle ".repeat(1000));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+        assertEquals("candle ".repeat(1000), new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "production"})
+    public void smallResponsesAreNotCompressed(String profile) throws Exception {
+        HttpResponse<byte[]> response = get(start(profile), "/small");
+
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals("ok", new String(response.body()));
+    }
+
+    private HttpClient start(String profile) throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        PropertiesPropertySourceLoader loader = new PropertiesPropertySourceLoader();
+        if (!"default".equals(profile)) {
+            loader.load(profile, new ClassPathResource("application-" + profile + ".properties"))
+                    .forEach(environment.getPropertySources()::addLast);
+        }
+        loader.load("application", new ClassPathResource("application.properties"))
+                .forEach(environment.getPropertySources()::addLast);
+        ServerProperties serverProperties = Binder.get(environment)
+                .bind("server", ServerProperties.class)
+                .orElseGet(ServerProperties::new);
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory();
+        new ServletWebServerFactoryCustomizer(serverProperties).customize(factory);
+        new TomcatServletWebServerFactoryCustomizer(serverProperties).customize(factory);
+        new TomcatWebServerFactoryCustomizer(new MockEnvironment(), serverProperties).customize(factory);
+        factory.setPort(0);
+        webServer = factory.getWebServer(servletContext -> servletContext
+                .addServlet("store", new StoreServlet())
+                .addMapping("/"));
+        webServer.start();
+
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .build();
+    }
+
+    private HttpResponse<byte[]> get(HttpClient client, String path) throws Exception {
+        return get(client, webServer.getPort(), path);
+    }
+
+    private static HttpResponse<byte[]> get(HttpClient client, int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept-Encoding", "gzip")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Posts a form body with a client which asks for the h2c upgrade, as the JDK client does by default.
+     */
+    private static HttpResponse<byte[]> postForm(HttpClient client, int port, String path, String form) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Requests the pages of the running application on the embedded database.
+     */
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    class Application {
+        /**
+         * Asks for the h2c upgrade on every new connection.
+         */
+        private final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .build();
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private PageCache pageCache;
+
+        @Autowired
+        private CandleRepository candleRepository;
+
+        @DynamicPropertySource
+        static void database(DynamicPropertyRegistry registry) {
+            EmbeddedDatabase.register(registry);
+        }
+
+        @BeforeEach
+        public void setUp() {
+            pageCache.onCatalogChanged(new CatalogChangedEvent());
+        }
+
+        @Test
+        public void menuIsCompressed() throws Exception {
+            String page = renderedPage("/menu");
+
+            assertTrue(page.contains(candleRepository.findAll(PageRequest.of(0, 1)).getContent()
+                    .get(0).getCandleTitle()));
+        }
+
+        @Test
+        public void mainPageIsCompressed() throws Exception {
+            String page = renderedPage("/");
+
+            assertTrue(page.trim().endsWith("</html>"));
+        }
+
+        @Test
+        public void searchIsCompressed() throws Exception {
+            String title = candleRepository.findAll(PageRequest.of(0, 1)).getContent().get(0).getCandleTitle();
+
+            String page = renderedPage("/search?filter=" + URLEncoder.encode(title, StandardCharsets.UTF_8));
+
+            assertTrue(page.contains(title));
+        }
+
+        @Test
+        public void loginFormSurvivesUpgradeRequest() throws Exception {
+            HttpResponse<byte[]> response = postForm(client, port, "/login", "username=nobody&password=wrong");
+
+            assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+            assertEquals(302, response.statusCode());
+            assertTrue(response.headers().firstValue("Location").orElse("").endsWith("/login?error"));
+        }
+
+        @Test
+        public void cachedPageIsServedGzipped() throws Exception {
+            String rendered = renderedPage("/menu");
+            PageCache.Page cached = pageCache.get("/menu");
+            assertNotNull(cached);
+
+            HttpResponse<byte[]> response = get(client, port, "/menu");
+
+            assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+            assertArrayEquals(cached.getGzipped(), response.body());
+            assertEquals(rendered, new String(gunzip(response.body()), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Requests a page which is not cached yet, so it is rendered by the controller and compressed by Tomcat.
+         */
+        private String renderedPage(String path) throws Exception {
+            HttpResponse<byte[]> response = get(client, port, path);
+
+            assertEquals(200, response.statusCode());
+            assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+            byte[] page = gunzip(response.body());
+            assertTrue(response.body().length < page.length / 3,
+                    path + " is " + response.body().length + " of " + page.length + " bytes");
+            return new String(page, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Serves the raw menu template as a page, the style sheet and a response below the compression threshold,
+     * echoes the posted form field.
+     */
+    private static class StoreServlet extends HttpServlet {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write(request.getParameter("text"));
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String resource;
+            if ("/menu".equals(request.getRequestURI())) {
+                response.setContentType("text/html;charset=UTF-8");
+                resource = "templates/menu.html";
+            } else if ("/static/style.css".equals(request.getRequestURI())) {
+                response.setContentType("text/css");
+                resource = "static/style.css";
+            } else {
+                response.setContentType("text/plain");
+                response.getWriter().write("ok");
+                return;
+            }
+            StreamUtils.copy(new ClassPathResource(resource).getInputStream(), response.getOutputStream());
+        }
+    }
+}
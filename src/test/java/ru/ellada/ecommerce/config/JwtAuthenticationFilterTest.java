@@ -0,0 +1,94 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.Impl.JwtTokenService;
+
+import javax.servlet.http.Cookie;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+    private final JwtTokenService jwtTokenService = new JwtTokenService("session", "secret", 15, 60);
+
+    private UserDetailsService userDetailsService;
+
+    private JwtAuthenticationFilter filter;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    public void setUp() {
+        userDetailsService = Mockito.mock(UserDetailsService.class);
+        filter = new JwtAuthenticationFilter(jwtTokenService, userDetailsService,
+                new JwtLoginSuccessHandler(jwtTokenService, true));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void accessTokenAuthenticatesWithoutLoadingUser() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(JwtLoginSuccessHandler.ACCESS_COOKIE, jwtTokenService.createAccessToken(user())));
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("admin", authentication.getName());
+        assertTrue(authentication.getAuthorities().contains(Role.ADMIN));
+        Mockito.verifyNoInteractions(userDetailsService);
+        assertNull(response.getHeader("Set-Cookie"));
+    }
+
+    @Test
+    public void refreshTokenIssuesNewAccessToken() throws Exception {
+        Mockito.when(userDetailsService.loadUserByUsername("admin")).thenReturn(user());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(JwtLoginSuccessHandler.REFRESH_COOKIE, jwtTokenService.createRefreshToken(user())));
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals("admin", SecurityContextHolder.getContext().getAuthentication().getName());
+        String cookie = response.getHeader("Set-Cookie");
+        assertTrue(cookie.startsWith(JwtLoginSuccessHandler.ACCESS_COOKIE + "="));
+        assertTrue(cookie.contains("HttpOnly"));
+        assertTrue(cookie.contains("Secure"));
+    }
+
+    @Test
+    public void rejectedRefreshClearsTokens() throws Exception {
+        Mockito.when(userDetailsService.loadUserByUsername("admin")).thenThrow(new LockedException("locked"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(JwtLoginSuccessHandler.REFRESH_COOKIE, jwtTokenService.createRefreshToken(user())));
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(2, response.getHeaders("Set-Cookie").size());
+        assertTrue(response.getHeaders("Set-Cookie").stream().allMatch(cookie -> cookie.contains("Max-Age=0")));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setActive(true);
+        user.setRoles(Collections.singleton(Role.ADMIN));
+        return user;
+    }
+}
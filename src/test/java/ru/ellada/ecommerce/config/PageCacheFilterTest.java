@@ -0,0 +1,130 @@
+package ru.ellada.ecommerce.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+import ru.ellada.ecommerce.service.Impl.PageCache;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheFilterTest {
+    private final PageCache pageCache = new PageCache(300, 100, 1 << 20, new SimpleMeterRegistry());
+
+    private final PageCacheFilter filter = new PageCacheFilter(pageCache);
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final FilterChain chain = (request, response) -> {
+        renders.incrementAndGet();
+        response.setContentType("text/html;charset=UTF-8");
+        response.getWriter().write("<html>page " + renders.get() + "</html>");
+    };
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void anonymousPageIsRenderedOnce() throws Exception {
+        assertEquals("<html>page 1</html>", perform(request("/menu")).getContentAsString());
+
+        MockHttpServletResponse cached = perform(request("/menu"));
+
+        assertEquals("<html>page 1</html>", cached.getContentAsString());
+        assertEquals("text/html;charset=UTF-8", cached.getContentType());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void gzipIsServedWhenAccepted() throws Exception {
+        perform(request("/product/1"));
+        MockHttpServletRequest request = request("/product/1");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+
+        MockHttpServletResponse cached = perform(request);
+
+        assertEquals("gzip", cached.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", cached.getHeader("Vary"));
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(cached.getContentAsByteArray())).readAllBytes();
+        assertEquals("<html>page 1</html>", new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void keyIgnoresParameterOrder() throws Exception {
+        MockHttpServletRequest first = request("/menu/search");
+        first.setParameter("startingPrice", "100");
+        first.setParameter("endingPrice", "200");
+        MockHttpServletRequest second = request("/menu/search");
+        second.setParameter("endingPrice", "200");
+        second.setParameter("startingPrice", "100");
+
+        assertEquals("/menu/search?endingPrice=200&startingPrice=100", PageCacheFilter.key(first));
+        assertEquals(PageCacheFilter.key(first), PageCacheFilter.key(second));
+    }
+
+    @Test
+    public void authenticatedUserGetsFreshPage() throws Exception {
+        perform(request("/menu"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user", null,
+                AuthorityUtils.createAuthorityList("USER")));
+
+        assertEquals("<html>page 2</html>", perform(request("/menu")).getContentAsString());
+    }
+
+    @Test
+    public void catalogChangeRendersPageAgain() throws Exception {
+        perform(request("/"));
+
+        pageCache.onCatalogChanged(new CatalogChangedEvent());
+
+        assertEquals("<html>page 2</html>", perform(request("/")).getContentAsString());
+    }
+
+    @Test
+    public void otherPagesAreNotCached() throws Exception {
+        perform(request("/cart"));
+        perform(request("/cart"));
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void responseSettingCookieIsNotCached() throws Exception {
+        FilterChain sessionChain = (request, response) -> {
+            renders.incrementAndGet();
+            ((HttpServletResponse) response).addHeader("Set-Cookie", "JSESSIONID=1");
+            response.setContentType("text/html");
+            response.getWriter().write("<html>session</html>");
+        };
+        filter.doFilter(request("/"), new MockHttpServletResponse(), sessionChain);
+        filter.doFilter(request("/"), new MockHttpServletResponse(), sessionChain);
+
+        assertEquals(2, renders.get());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setServletPath(uri);
+        return request;
+    }
+}
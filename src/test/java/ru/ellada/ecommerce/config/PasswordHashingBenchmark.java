@@ -0,0 +1,79 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.ellada.ecommerce.service.Impl.BoundedPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Picks the BCrypt strength for {@code security.password.bcrypt-strength}.
+ * Concurrent logins are replayed through the bounded encoder for every strength and
+ * the strongest one whose p99 login latency, queueing included, meets the target is reported.
+ * Run it on the production hardware:
+ * {@code mvn test -Dtest=PasswordHashingBenchmark -Dbenchmark=true -Dbenchmark.target-p99-ms=250}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashingBenchmark {
+    private static final int LOGINS = 200;
+
+    @Test
+    public void pickStrength() throws Exception {
+        long targetP99Ms = Long.getLong("benchmark.target-p99-ms", 250);
+        int hashThreads = Integer.getInteger("benchmark.hash-threads", 2);
+        int concurrentLogins = Integer.getInteger("benchmark.concurrent-logins", 8);
+        int chosen = -1;
+
+        for (int strength = 8; strength <= 14; strength++) {
+            long p99Ms = measureP99(strength, hashThreads, concurrentLogins);
+            System.out.printf("strength=%d p99=%d ms%n", strength, p99Ms);
+            if (p99Ms > targetP99Ms) {
+                break;
+            }
+            chosen = strength;
+        }
+
+        if (chosen < 0) {
+            System.out.printf("No strength meets p99 <= %d ms, add hashing threads or CPUs%n", targetP99Ms);
+        } else {
+            System.out.printf("security.password.bcrypt-strength=%d meets p99 <= %d ms%n", chosen, targetP99Ms);
+        }
+    }
+
+    private long measureP99(int strength, int hashThreads, int concurrentLogins) throws Exception {
+        PasswordEncoder delegate = EncryptionConfig.createDelegatingPasswordEncoder(strength);
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(delegate, hashThreads,
+                LOGINS, Duration.ofMinutes(1));
+        ExecutorService logins = Executors.newFixedThreadPool(concurrentLogins);
+        String hash = delegate.encode("password");
+
+        try {
+            passwordEncoder.matches("password", hash);
+            List<Future<Long>> latencies = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                latencies.add(logins.submit(() -> {
+                    long start = System.nanoTime();
+                    passwordEncoder.matches("password", hash);
+                    return System.nanoTime() - start;
+                }));
+            }
+
+            long[] sorted = new long[LOGINS];
+            for (int i = 0; i < LOGINS; i++) {
+                sorted[i] = latencies.get(i).get();
+            }
+            Arrays.sort(sorted);
+            return Duration.ofNanos(sorted[(int) Math.ceil(LOGINS * 0.99) - 1]).toMillis();
+        } finally {
+            logins.shutdownNow();
+            passwordEncoder.shutdown();
+        }
+    }
+}
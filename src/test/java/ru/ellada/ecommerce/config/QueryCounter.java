@@ -0,0 +1,78 @@
+package ru.ellada.ecommerce.config;
+
+import org.springframework.boot.test.context.TestComponent;
+import ru.ellada.ecommerce.service.Impl.ObservedDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements executed by the current thread, for query budgets in the MockMvc tests.
+ * Import it into a Spring test with {@code @Import(QueryCounter.class)}, the data source post processor
+ * of {@link JdbcObservationConfig} picks it up like any other statement listener.
+ * MockMvc handles the request on the test thread, so the scheduled jobs do not affect the count.
+ *
+ * <pre>
+ * queryCounter.reset();
+ * mockMvc.perform(get("/menu")).andExpect(status().isOk());
+ * queryCounter.assertAtMost(3);
+ * queryCounter.assertNoRepeatedStatements();
+ * </pre>
+ */
+@TestComponent
+public class QueryCounter implements ObservedDataSource.StatementListener {
+    private final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void afterExecute(String sql, List<String> parameterTypes, long elapsedNanos) {
+        statements.get().add(sql);
+    }
+
+    /**
+     * Forgets the statements executed by the current thread so far.
+     */
+    public void reset() {
+        statements.get().clear();
+    }
+
+    /**
+     * Returns the statements executed by the current thread since the last reset.
+     *
+     * @return executed statements in order.
+     */
+    public List<String> getStatements() {
+        return new ArrayList<>(statements.get());
+    }
+
+    /**
+     * Fails when the current thread executed more statements than the budget since the last reset.
+     *
+     * @param budget maximum number of statements.
+     */
+    public void assertAtMost(int budget) {
+        List<String> executed = statements.get();
+        if (executed.size() > budget) {
+            throw new AssertionError("Expected at most " + budget + " statements, but " + executed.size() +
+                    " were executed:\n" + String.join("\n", executed));
+        }
+    }
+
+    /**
+     * Fails when the same statement was executed more than once since the last reset.
+     * Repeated statements with different parameters are the usual sign of an N+1 select,
+     * for example loading the candle list of every user one by one.
+     */
+    public void assertNoRepeatedStatements() {
+        Map<String, Long> repeated = statements.get().stream()
+                .collect(Collectors.groupingBy(sql -> sql, TreeMap::new, Collectors.counting()));
+        repeated.values().removeIf(count -> count == 1);
+        if (!repeated.isEmpty()) {
+            throw new AssertionError("Statements were executed more than once:\n" + repeated.entrySet().stream()
+                    .map(entry -> entry.getValue() + " x " + entry.getKey())
+                    .collect(Collectors.joining("\n")));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCounterTest {
+    private final QueryCounter queryCounter = new QueryCounter();
+
+    @Test
+    public void budgetIsChecked() {
+        queryCounter.afterExecute("select * from candle", Collections.emptyList(), 0);
+        queryCounter.afterExecute("select count(*) from candle", Collections.emptyList(), 0);
+
+        queryCounter.assertAtMost(2);
+        AssertionError error = assertThrows(AssertionError.class, () -> queryCounter.assertAtMost(1));
+        assertTrue(error.getMessage().contains("select count(*) from candle"));
+
+        queryCounter.reset();
+        queryCounter.assertAtMost(0);
+    }
+
+    @Test
+    public void repeatedStatementsAreReported() {
+        queryCounter.afterExecute("select * from usr", Collections.emptyList(), 0);
+        queryCounter.assertNoRepeatedStatements();
+
+        for (int i = 0; i < 3; i++) {
+            queryCounter.afterExecute("select * from user_candle_list where user_id = ?",
+                    Collections.singletonList("Long"), 0);
+        }
+
+        AssertionError error = assertThrows(AssertionError.class, queryCounter::assertNoRepeatedStatements);
+        assertEquals("Statements were executed more than once:\n3 x select * from user_candle_list where user_id = ?",
+                error.getMessage());
+    }
+
+    @Test
+    public void statementsOfOtherThreadsAreNotCounted() throws InterruptedException {
+        Thread thread = new Thread(() -> queryCounter.afterExecute("select 1", Collections.emptyList(), 0));
+        thread.start();
+        thread.join();
+        queryCounter.afterExecute("select 2", Collections.emptyList(), 0);
+
+        assertEquals(Arrays.asList("select 2"), queryCounter.getStatements());
+    }
+}
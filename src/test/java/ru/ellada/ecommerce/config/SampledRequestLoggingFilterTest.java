@@ -0,0 +1,53 @@
+package ru.ellada.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampledRequestLoggingFilterTest {
+    @Test
+    public void sampleOfRequestsIsLogged() {
+        assertTrue(new SampledRequestLoggingFilter(0.25, () -> 0.2).shouldLog(200));
+        assertFalse(new SampledRequestLoggingFilter(0.25, () -> 0.3).shouldLog(200));
+        assertTrue(new SampledRequestLoggingFilter(1, () -> 0.99).shouldLog(404));
+    }
+
+    @Test
+    public void serverErrorsAreLoggedAlways() {
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(0, () -> 0);
+
+        assertFalse(filter.shouldLog(200));
+        assertTrue(filter.shouldLog(500));
+        assertTrue(filter.shouldLog(503));
+    }
+
+    @Test
+    public void queryStringIsNotLogged() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reset");
+        request.setQueryString("token=secret-token");
+
+        assertEquals("/reset", SampledRequestLoggingFilter.loggedPath(request));
+    }
+
+    @Test
+    public void activationCodeIsMasked() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shop/activate/secret-code");
+        request.setContextPath("/shop");
+
+        assertEquals("/shop/activate/***", SampledRequestLoggingFilter.loggedPath(request));
+        assertEquals("/menu", SampledRequestLoggingFilter.loggedPath(new MockHttpServletRequest("GET", "/menu")));
+    }
+
+    @Test
+    public void requestIsPassedDown() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        new SampledRequestLoggingFilter(1).doFilter(new MockHttpServletRequest("GET", "/menu"),
+                new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+}
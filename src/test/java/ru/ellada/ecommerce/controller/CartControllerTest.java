@@ -1,96 +1,149 @@
 package ru.ellada.ecommerce.controller;
 
-import ru.ellada.ecommerce.domain.Candle;
-import ru.ellada.ecommerce.domain.User;
-import ru.ellada.ecommerce.repos.UserRepository;
-import ru.ellada.ecommerce.service.Impl.MailSender;
-import ru.ellada.ecommerce.service.UserService;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mockito;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.repos.CandleRepository;
+import ru.ellada.ecommerce.repos.UserRepository;
+import ru.ellada.ecommerce.service.Impl.MailSender;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
+import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
-@SpringBootTest
-public class CartControllerTest {
+@SpringBootTest(properties = "page-cache.enabled=false")
+@Import(QueryCounter.class)
+class CartControllerTest {
+    /**
+     * The user with its roles and cart.
+     */
+    private static final int CART_QUERY_BUDGET = 3;
+
+    /**
+     * The candle, the user with its roles and cart, the update of the cart.
+     */
+    private static final int CART_CHANGE_QUERY_BUDGET = 7;
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
-    private CartController cartController;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserService userService;
+    private CandleRepository candleRepository;
 
-    @MockBean
-    private UserRepository userRepository;
+    @Autowired
+    private QueryCounter queryCounter;
 
     @MockBean
     private MailSender mailSender;
 
-    @MockBean
-    private PasswordEncoder passwordEncoder;
+    private User customer;
 
-    @Test
-    public void getCartTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        candles.add(new Candle());
-        candles.add(new Candle());
+    private Candle first;
 
-        User user = new User();
-        user.setCandleList(candles);
+    private Candle second;
 
-        assertNotNull(user.getCandleList());
-        assertEquals(2, user.getCandleList().size());
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
     }
 
-    @Test
-    public void addToCartTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
+    @BeforeEach
+    public void setUp() {
+        List<Candle> candles = candleRepository.findAll(PageRequest.of(0, 2)).getContent();
+        first = candles.get(0);
+        second = candles.get(1);
+
         User user = new User();
+        user.setUsername("cart-" + UUID.randomUUID());
+        user.setPassword("{noop}password");
+        user.setEmail(user.getUsername() + "@test.ru");
+        user.setActive(true);
+        user.setRoles(Collections.singleton(Role.USER));
+        user.setCandleList(new ArrayList<>(Collections.singletonList(first)));
+        customer = userRepository.save(user);
+    }
 
-        user.setCandleList(candles);
-        user.getCandleList().add(new Candle());
+    @AfterEach
+    public void tearDown() {
+        userRepository.delete(customer);
+    }
 
-        userService.addUser(user);
+    @Test
+    public void getCartTest() throws Exception {
+        mockMvc.perform(get("/cart").with(user(customer)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("cart"))
+                .andExpect(model().attribute("candles", contains(hasProperty("id", is(first.getId())))));
+    }
 
-        assertNotNull(user.getCandleList());
-        assertEquals(1, user.getCandleList().size());
+    @Test
+    public void addToCartTest() throws Exception {
+        mockMvc.perform(post("/cart/add").with(user(customer)).param("add", String.valueOf(second.getId())))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/cart"));
 
-        Mockito.verify(userRepository, Mockito.times(1)).save(user);
+        assertEquals(Arrays.asList(first.getId(), second.getId()), cartIds());
     }
 
     @Test
     public void removeFromCartTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        User user = new User();
-        Candle candle = new Candle();
+        mockMvc.perform(post("/cart/remove").with(user(customer)).param("candleId", String.valueOf(first.getId())))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/cart"));
 
-        user.setCandleList(candles);
-        user.getCandleList().add(candle);
+        assertEquals(Collections.emptyList(), cartIds());
+    }
 
-        userService.addUser(user);
+    @Test
+    public void cartQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/cart").with(user(customer)))
+                .andExpect(status().isOk());
 
-        user.getCandleList().remove(candle);
+        queryCounter.assertAtMost(CART_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
+    }
 
-        userService.addUser(user);
+    @Test
+    public void addToCartQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(post("/cart/add").with(user(customer)).param("add", String.valueOf(second.getId())))
+                .andExpect(status().is3xxRedirection());
 
-        assertNotNull(user.getCandleList());
-        assertEquals(0, user.getCandleList().size());
+        queryCounter.assertAtMost(CART_CHANGE_QUERY_BUDGET);
+    }
 
-        Mockito.verify(userRepository, Mockito.times(2)).save(user);
+    private List<Long> cartIds() {
+        List<Long> ids = new ArrayList<>();
+        userRepository.findByUsername(customer.getUsername()).getCandleList()
+                .forEach(candle -> ids.add(candle.getId()));
+        return ids;
     }
 }
@@ -1,108 +1,151 @@
 package ru.ellada.ecommerce.controller;
 
-import ru.ellada.ecommerce.domain.Candle;
-import ru.ellada.ecommerce.repos.CandleRepository;
-import ru.ellada.ecommerce.service.CandleService;
-import org.junit.Test;
-import org.junit.jupiter.api.Assertions;
-import org.junit.runner.RunWith;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.repos.CandleRepository;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
-@SpringBootTest
-public class MainControllerTest {
+@SpringBootTest(properties = "page-cache.enabled=false")
+@Import(QueryCounter.class)
+class MainControllerTest {
+    /**
+     * All candles of the catalog.
+     */
+    private static final int HOME_QUERY_BUDGET = 1;
+
+    /**
+     * Page of found candles and its count.
+     */
+    private static final int SEARCH_QUERY_BUDGET = 2;
+
+    /**
+     * The candle of the product page.
+     */
+    private static final int PRODUCT_QUERY_BUDGET = 1;
+
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @Autowired
     private CandleRepository candleRepository;
 
     @Autowired
-    private CandleService candleService;
+    private QueryCounter queryCounter;
 
-    @Autowired
-    private MainController mainController;
+    private Candle first;
 
-    @Test
-    public void homeTest() throws Exception {
-        Candle candle1 = generateCandle(39L,  "Test1");
-        Candle candle2 = generateCandle(40L, "Test2");
+    private Candle second;
 
-        when(candleRepository.findAll()).thenReturn(Arrays.asList(candle1, candle2));
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        String title = "Main-" + UUID.randomUUID();
+        first = saveCandle(title + "-first");
+        second = saveCandle(title + "-second");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        candleRepository.delete(first);
+        candleRepository.delete(second);
+    }
 
+    @Test
+    public void homeTest() throws Exception {
         mockMvc.perform(get("/"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("main"))
-                .andExpect(model().attribute("candles", hasSize(2)))
-                .andExpect(model().attribute("candles", hasItem(
+                .andExpect(model().attribute("candles", hasSize((int) candleRepository.count())))
+                .andExpect(model().attribute("candles", hasItems(
                         allOf(
-                                hasProperty("id", is(39L)),
-                                hasProperty("candleTitle", is("123"))
-                        )
-                )))
-                .andExpect(model().attribute("candle", hasItem(
+                                hasProperty("id", is(first.getId())),
+                                hasProperty("candleTitle", is(first.getCandleTitle()))
+                        ),
                         allOf(
-                                hasProperty("id", is(40L)),
-                                hasProperty("candleTitle", is("1234"))
+                                hasProperty("id", is(second.getId())),
+                                hasProperty("candleTitle", is(second.getCandleTitle()))
                         )
                 )));
     }
 
     @Test
     public void searchTest() throws Exception {
-        List<Candle> candleList = new ArrayList<>();
-        Candle candle = new Candle();
-        candle.setCandleTitle("120");
-        candleList.add(candle);
+        mockMvc.perform(get("/search").param("filter", first.getCandleTitle()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("menu"))
+                .andExpect(model().attribute("page", hasProperty("content", contains(
+                        hasProperty("id", is(first.getId()))))))
+                .andExpect(content().string(containsString(first.getCandleTitle())));
+    }
 
-        Pageable pageable = PageRequest.of(0, 12);
-        Page<Candle> page = new PageImpl<>(candleList);
+    @Test
+    public void getProductByIdTest() throws Exception {
+        mockMvc.perform(get("/product/" + second.getId()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("product"))
+                .andExpect(model().attribute("candle", hasProperty("candleTitle", is(second.getCandleTitle()))));
+    }
 
-        when(candleRepository.findByCandleTitle(candle.getCandleTitle(), pageable)).thenReturn(page);
+    @Test
+    public void homeQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/"))
+                .andExpect(status().isOk());
 
-        assertNotNull(candleList);
-        assertNotNull(candle.getCandleTitle());
-        assertEquals(1, candleService.findByCandleTitle(candle.getCandleTitle(), pageable).getSize());
-        Assertions.assertEquals("120", candleService.findByCandleTitle(candle.getCandleTitle(), pageable).getContent().get(0).getCandleTitle());
+        queryCounter.assertAtMost(HOME_QUERY_BUDGET);
     }
 
     @Test
-    public void getProductByIdTest() throws Exception {
-        Long id = 7L;
-        Candle candle = new Candle();
-        candle.setId(7L);
+    public void searchQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/search").param("filter", "Main-"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("menu"));
+
+        queryCounter.assertAtMost(SEARCH_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
+    }
+
+    @Test
+    public void productQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/product/" + first.getId()))
+                .andExpect(status().isOk());
 
-        assertNotNull(candle.getId());
-        assertEquals(id, candle.getId());
+        queryCounter.assertAtMost(PRODUCT_QUERY_BUDGET);
     }
 
-    private Candle generateCandle(Long id, String candleTitle) {
+    private Candle saveCandle(String title) {
         Candle candle = new Candle();
-        candle.setId(id);
-        candle.setCandleTitle(candleTitle);
+        candle.setCandleTitle(title);
         candle.setPrice(1000);
-
-        return candle;
+        candle.setVolume(50);
+        candle.setFragranceNotes("lavender");
+        candle.setDescription("Test candle");
+        candle.setFilename("test.jpg");
+        candle.setAnotherPrice(candle.getPrice() * 2);
+        candle.setAnotherVolume(120);
+        return candleRepository.save(candle);
     }
 }
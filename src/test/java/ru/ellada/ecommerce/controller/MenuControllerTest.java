@@ -1,77 +1,125 @@
 package ru.ellada.ecommerce.controller;
 
-import ru.ellada.ecommerce.domain.Candle;
-import ru.ellada.ecommerce.repos.CandleRepository;
-import ru.ellada.ecommerce.service.CandleService;
-import org.junit.Test;
-import org.junit.jupiter.api.Assertions;
-import org.junit.runner.RunWith;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.repos.CandleRepository;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.when;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
-@SpringBootTest
-public class MenuControllerTest {
+@SpringBootTest(properties = "page-cache.enabled=false")
+@Import(QueryCounter.class)
+class MenuControllerTest {
+    /**
+     * Page of candles, its count, the minimum and the maximum price.
+     */
+    private static final int MENU_QUERY_BUDGET = 4;
+
+    /**
+     * Prices of the test candles are above the prices of the seeded catalog.
+     */
+    private static final int BASE_PRICE = 100_000;
+
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @Autowired
     private CandleRepository candleRepository;
 
     @Autowired
-    private CandleService candleService;
+    private QueryCounter queryCounter;
 
-    @Autowired
-    private MenuController menuController;
+    private final List<Candle> candles = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        String title = "Menu-" + UUID.randomUUID();
+        for (int i = 1; i <= 13; i++) {
+            Candle candle = new Candle();
+            candle.setCandleTitle(title + "-" + i);
+            candle.setPrice(BASE_PRICE + i);
+            candle.setVolume(50);
+            candle.setFragranceNotes("lavender");
+            candle.setDescription("Test candle");
+            candle.setFilename("test.jpg");
+            candle.setAnotherPrice(candle.getPrice() * 2);
+            candle.setAnotherVolume(120);
+            candles.add(candleRepository.save(candle));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        candleRepository.deleteAll(candles);
+    }
 
     @Test
     public void mainMenuTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        Candle candle = new Candle();
-        candles.add(candle);
+        mockMvc.perform(get("/menu"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("menu"))
+                .andExpect(model().attribute("page", hasProperty("totalElements", is(candleRepository.count()))))
+                .andExpect(model().attribute("page", hasProperty("content", hasSize(12))))
+                .andExpect(model().attribute("minCandlePrice", comparesEqualTo(candleRepository.minCandlePrice())))
+                .andExpect(model().attribute("maxCandlePrice", comparesEqualTo(BigDecimal.valueOf(BASE_PRICE + 13))));
+    }
 
-        Pageable pageable = PageRequest.of(0, 12);
-        Page<Candle> page = new PageImpl<>(candles);
+    @Test
+    public void searchByParametersTest() throws Exception {
+        mockMvc.perform(get("/menu/search")
+                        .param("startingPrice", String.valueOf(BASE_PRICE + 5))
+                        .param("endingPrice", String.valueOf(BASE_PRICE + 7)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("menu"))
+                .andExpect(model().attribute("page", hasProperty("content", contains(
+                        hasProperty("price", is(BASE_PRICE + 5)),
+                        hasProperty("price", is(BASE_PRICE + 6)),
+                        hasProperty("price", is(BASE_PRICE + 7))))))
+                .andExpect(content().string(containsString(candles.get(5).getCandleTitle())));
+    }
 
-        when(candleRepository.findAll(pageable)).thenReturn(page);
+    @Test
+    public void mainMenuQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/menu"))
+                .andExpect(status().isOk());
 
-        assertNotNull(candles);
-        assertEquals(1, candleService.findAll(pageable).getSize());
+        queryCounter.assertAtMost(MENU_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
     }
 
-//    @Test
-//    public void searchByParametersTest() throws Exception {
-//        List<Candle> candles = new ArrayList<>();
-//        Candle candle = new Candle();
-//        candle.setPrice(1000);
-//        candles.add(candle);
-//
-//        Pageable pageable = PageRequest.of(0, 12);
-//        Page<Candle> page = new PageImpl<>(candles);
-//
-//        when(candleRepository.findByPriceBetween(900, 1100, pageable)).thenReturn(page);
-//        assertNotNull(candles);
-//        Assertions.assertEquals(1000, candleService.findByPriceBetween(900, 1100, pageable)
-//                .getContent().get(0).getPrice());
-//        assertEquals(1, candleService.findByCandleGenderIn(
-//                Collections.singletonList(candles.get(0).getCandleGender()),
-//                pageable).getSize());
-//    }
-}
\ No newline at end of file
+    @Test
+    public void searchByParametersQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/menu/search")
+                        .param("startingPrice", String.valueOf(BASE_PRICE))
+                        .param("endingPrice", String.valueOf(BASE_PRICE + 20)))
+                .andExpect(status().isOk());
+
+        queryCounter.assertAtMost(MENU_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
+    }
+}
@@ -1,120 +1,271 @@
 package ru.ellada.ecommerce.controller;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
 import ru.ellada.ecommerce.domain.Candle;
 import ru.ellada.ecommerce.domain.Order;
+import ru.ellada.ecommerce.domain.Role;
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.repos.CandleRepository;
 import ru.ellada.ecommerce.repos.OrderRepository;
 import ru.ellada.ecommerce.repos.UserRepository;
 import ru.ellada.ecommerce.service.Impl.MailSender;
 import ru.ellada.ecommerce.service.OrderService;
-import ru.ellada.ecommerce.service.UserService;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
-@SpringBootTest
-public class OrderControllerTest {
+@SpringBootTest(properties = "page-cache.enabled=false")
+@Import(QueryCounter.class)
+class OrderControllerTest {
+    /**
+     * The user with its roles and cart.
+     */
+    private static final int ORDER_FORM_QUERY_BUDGET = 3;
+
+    /**
+     * The user with its roles and cart, the order with its candles, the outbox event and the emptied cart.
+     */
+    private static final int PLACE_ORDER_QUERY_BUDGET = 9;
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
-    private UserService userService;
+    private UserRepository userRepository;
 
     @Autowired
-    private OrderService orderService;
+    private OrderRepository orderRepository;
 
     @Autowired
-    private OrderController orderController;
+    private CandleRepository candleRepository;
 
-    @MockBean
-    private UserRepository userRepository;
+    @Autowired
+    private OrderService orderService;
 
-    @MockBean
-    private OrderRepository orderRepository;
+    @Autowired
+    private QueryCounter queryCounter;
 
     @MockBean
     private MailSender mailSender;
 
-    @MockBean
-    private PasswordEncoder passwordEncoder;
+    private User customer;
+
+    private Candle candle;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        candle = candleRepository.findAll(PageRequest.of(0, 1)).getContent().get(0);
+        customer = saveUser("customer-" + UUID.randomUUID(), Role.USER, Collections.singletonList(candle));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        orderRepository.deleteAll(orderRepository.findOrderByUser(customer));
+        userRepository.delete(customer);
+    }
 
     @Test
     public void getOrderTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        User user = new User();
-        Candle candle = new Candle();
+        mockMvc.perform(get("/order").with(user(customer)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("order/order"))
+                .andExpect(model().attribute("candles", contains(hasProperty("id", is(candle.getId())))))
+                .andExpect(model().attribute("idempotencyKey", notNullValue()));
+    }
+
+    @Test
+    public void postOrderTest() throws Exception {
+        postOrder(UUID.randomUUID().toString())
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/finalizeOrder"));
 
-        user.setCandleList(candles);
-        user.getCandleList().add(candle);
+        List<Order> orders = orderRepository.findOrderByUser(customer);
+        assertEquals(1, orders.size());
+        assertEquals("John", orders.get(0).getFirstName());
+        assertEquals(Collections.singletonList(candle.getId()), candleIds(orders.get(0)));
+        assertTrue(userRepository.findByUsername(customer.getUsername()).getCandleList().isEmpty());
+    }
+
+    @Test
+    public void repeatedOrderFormCreatesOneOrder() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
 
-        assertNotNull(user.getCandleList());
-        assertEquals(1, user.getCandleList().size());
+        MvcResult first = postOrder(idempotencyKey).andReturn();
+        MvcResult second = postOrder(idempotencyKey).andReturn();
+
+        assertEquals(1, orderRepository.findOrderByUser(customer).size());
+        assertEquals(first.getFlashMap().get("orderIndex"), second.getFlashMap().get("orderIndex"));
     }
 
     @Test
-    public void postOrderTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        User user = new User();
-        Candle candle = new Candle();
+    public void finalizeOrderTest() throws Exception {
+        MvcResult result = postOrder(UUID.randomUUID().toString()).andReturn();
+        Long orderIndex = (Long) result.getFlashMap().get("orderIndex");
 
-        user.setCandleList(candles);
-        user.getCandleList().add(candle);
+        assertEquals(orderRepository.findOrderByUser(customer).get(0).getId(), orderIndex);
 
-        userService.save(user);
+        mockMvc.perform(get("/finalizeOrder").with(user(customer)).flashAttrs(result.getFlashMap()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("order/finalizeOrder"))
+                .andExpect(content().string(containsString(String.valueOf(orderIndex))));
+    }
 
-        Order order = new Order(user);
-        order.setId(1L);
-        order.setFirstName("John");
-        order.setCandleList(user.getCandleList());
+    @Test
+    public void finalizeOrderWithoutOrderRedirectsToOrders() throws Exception {
+        mockMvc.perform(get("/finalizeOrder").with(user(customer)))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/userOrders"));
+    }
 
-        orderService.save(order);
+    @Test
+    public void orderFormQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/order").with(user(customer)))
+                .andExpect(status().isOk());
+
+        queryCounter.assertAtMost(ORDER_FORM_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
+    }
 
-        assertNotNull(user);
-        assertNotNull(user.getCandleList());
-        assertEquals(1, user.getCandleList().size());
-        assertNotNull(order);
-        assertEquals(1L, order.getId());
-        assertEquals("John", order.getFirstName());
-        assertEquals(1, order.getCandleList().size());
+    @Test
+    public void placeOrderQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        postOrder(UUID.randomUUID().toString())
+                .andExpect(status().is3xxRedirection());
 
-        Mockito.verify(userRepository, Mockito.times(1)).save(user);
-        Mockito.verify(orderRepository, Mockito.times(1)).save(order);
+        queryCounter.assertAtMost(PLACE_ORDER_QUERY_BUDGET);
     }
 
     @Test
-    public void finalizeOrderTest() throws Exception {
-        List<Candle> candles = new ArrayList<>();
-        User user = new User();
-        Candle candle = new Candle();
-        Order order = new Order(user);
+    public void getAllOrdersListTest() throws Exception {
+        String city = "City-" + UUID.randomUUID();
+        for (int i = 1; i <= 5; i++) {
+            saveOrder(city, "buyer" + i + "@test.ru", LocalDate.of(2022, 3, i), 1000.0 * i);
+        }
+        User admin = saveUser("admin-" + UUID.randomUUID(), Role.ADMIN, Collections.emptyList());
+        try {
+            mockMvc.perform(get("/orders").with(user(admin))
+                            .param("city", city.toLowerCase())
+                            .param("totalFrom", "2000")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("order/orders"))
+                    .andExpect(model().attribute("page", hasProperty("totalElements", is(4L))))
+                    .andExpect(model().attribute("orders", contains(
+                            hasProperty("totalPrice", is(5000.0)),
+                            hasProperty("totalPrice", is(4000.0)))));
+        } finally {
+            userRepository.delete(admin);
+        }
+    }
+
+    @Test
+    public void ordersAreFilteredAndPagedInDatabase() {
+        String city = "City-" + UUID.randomUUID();
+        for (int i = 1; i <= 5; i++) {
+            saveOrder(city, "buyer" + i + "@test.ru", LocalDate.of(2022, 3, i), 1000.0 * i);
+        }
+        saveOrder(city, "other_buyer@test.ru", LocalDate.of(2022, 4, 1), 100.0);
+        PageRequest firstTwo = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+
+        assertEquals(6, orderService.findAll(null, null, null, city, null, null, firstTwo).getTotalElements());
+        assertEquals(Arrays.asList(4000.0, 3000.0, 2000.0), totals(orderService.findAll(LocalDate.of(2022, 3, 2),
+                LocalDate.of(2022, 3, 4), null, city.toUpperCase(), null, null,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id")))));
+        assertEquals(Collections.singletonList(2000.0), totals(orderService.findAll(null, null, "BUYER2", city,
+                null, null, firstTwo)));
+        assertEquals(Collections.singletonList(100.0), totals(orderService.findAll(null, null, "other_", city,
+                null, null, firstTwo)));
+        assertEquals(0, orderService.findAll(null, null, "buyer_", city, null, null, firstTwo).getTotalElements());
+
+        Page<Order> secondPage = orderService.findAll(null, null, null, city, 2000.0, 4000.0,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(3, secondPage.getTotalElements());
+        assertEquals(2, secondPage.getTotalPages());
+        assertEquals(Collections.singletonList(2000.0), totals(secondPage));
+    }
 
-        user.setCandleList(candles);
-        user.getCandleList().add(candle);
-        order.setCandleList(user.getCandleList());
+    private ResultActions postOrder(String idempotencyKey) throws Exception {
+        return mockMvc.perform(post("/order").with(user(customer))
+                .param("idempotencyKey", idempotencyKey)
+                .param("firstName", "John")
+                .param("lastName", "Smith")
+                .param("city", "Moscow")
+                .param("address", "Tverskaya 1")
+                .param("postIndex", "125009")
+                .param("email", "john@test.ru")
+                .param("phoneNumber", "+79990000000")
+                .param("totalPrice", "1000"));
+    }
+
+    private void saveOrder(String city, String email, LocalDate date, double totalPrice) {
+        Order order = new Order(customer);
+        order.setDate(date);
+        order.setFirstName("John");
+        order.setLastName("Smith");
+        order.setCity(city);
+        order.setAddress("Tverskaya 1");
+        order.setPostIndex(125009);
+        order.setEmail(email);
+        order.setPhoneNumber("+79990000000");
+        order.setTotalPrice(totalPrice);
+        orderRepository.save(order);
+    }
 
-        when(orderService.findAll()).thenReturn(Collections.singletonList(order));
+    private List<Double> totals(Page<Order> page) {
+        List<Double> totals = new ArrayList<>();
+        page.forEach(order -> totals.add(order.getTotalPrice()));
+        return totals;
+    }
+
+    private User saveUser(String username, Role role, List<Candle> cart) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}password");
+        user.setEmail(username + "@test.ru");
+        user.setActive(true);
+        user.setRoles(Collections.singleton(role));
+        user.setCandleList(new ArrayList<>(cart));
+        return userRepository.save(user);
+    }
 
-        assertNotNull(user);
-        assertNotNull(user.getCandleList());
-        assertEquals(1, user.getCandleList().size());
-        assertNotNull(order);
-        assertEquals(1, order.getCandleList().size());
+    private List<Long> candleIds(Order order) {
+        List<Long> ids = new ArrayList<>();
+        order.getCandleList().forEach(orderCandle -> ids.add(orderCandle.getId()));
+        return ids;
     }
 }
@@ -1,45 +1,55 @@
 package ru.ellada.ecommerce.controller;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
 import ru.ellada.ecommerce.domain.Candle;
 import ru.ellada.ecommerce.domain.Role;
 import ru.ellada.ecommerce.domain.User;
 import ru.ellada.ecommerce.repos.CandleRepository;
 import ru.ellada.ecommerce.repos.UserRepository;
 import ru.ellada.ecommerce.service.CandleService;
+import ru.ellada.ecommerce.service.Impl.MailSender;
 import ru.ellada.ecommerce.service.UserService;
-import org.hamcrest.CoreMatchers;
-import org.junit.Test;
-import org.junit.jupiter.api.Assertions;
-import org.junit.runner.RunWith;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
+import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
-@SpringBootTest
-public class UserControllerTest {
+@SpringBootTest(properties = "page-cache.enabled=false")
+@Import(QueryCounter.class)
+class UserControllerTest {
+    /**
+     * Page of user summaries, its count and the roles of the page.
+     */
+    private static final int USER_LIST_QUERY_BUDGET = 3;
+
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @Autowired
     private UserRepository userRepository;
 
-    @MockBean
+    @Autowired
     private CandleRepository candleRepository;
 
     @Autowired
@@ -48,66 +58,163 @@ public class UserControllerTest {
     @Autowired
     private CandleService candleService;
 
-    @Test
-    public void getAllProductsTest() {
-        List<Candle> candleList = new ArrayList<>();
-        candleList.add(new Candle());
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @MockBean
+    private MailSender mailSender;
+
+    private final List<User> users = new ArrayList<>();
 
-        Pageable pageable = PageRequest.of(0, 12);
-        Page<Candle> page = new PageImpl<>(candleList);
+    private String prefix;
 
-        when(candleRepository.findAll(pageable)).thenReturn(page);
+    private User admin;
 
-        assertEquals(1, candleService.findAll(pageable).getSize());
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        prefix = "list-" + UUID.randomUUID();
+        for (int i = 1; i <= 5; i++) {
+            saveUser(prefix + "-" + i, "box-" + prefix + "-" + i + "@test.ru", Role.USER);
+        }
+        admin = saveUser("admin-" + UUID.randomUUID(), "admin-" + UUID.randomUUID() + "@test.ru", Role.ADMIN);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    public void getAllProductsTest() {
+        assertEquals(Math.min(12, candleRepository.count()),
+                candleService.findAll(PageRequest.of(0, 12)).getNumberOfElements());
     }
 
     @Test
     public void addProductTest() {
         Candle candle = new Candle();
-        candle.setId(1L);
         candle.setCandleTitle("test");
-
-        when(candleRepository.save(candle)).thenReturn(candle);
-
-        Assertions.assertEquals(candle, candleService.save(candle));
-        assertNotNull(candle.getId());
+        candle.setPrice(1000);
+        candle.setVolume(50);
+        candle.setFragranceNotes("lavender");
+        candle.setDescription("Test candle");
+        candle.setFilename("test.jpg");
+        candle.setAnotherPrice(2000);
+        candle.setAnotherVolume(120);
+
+        Candle saved = candleService.save(candle);
+        try {
+            assertNotNull(saved.getId());
+            assertEquals("test", candleRepository.findById(saved.getId()).orElseThrow().getCandleTitle());
+        } finally {
+            candleRepository.delete(saved);
+        }
     }
 
     @Test
     public void userListTest() {
-        List<User> users = new ArrayList<>();
-        users.add(new User());
-
-        when(userRepository.findAll()).thenReturn(users);
-
-        assertEquals(1, userService.findAll().size());
+        assertEquals(userRepository.count(), userService.findAll().size());
     }
 
     @Test
     public void userSaveTest() {
-        User user = new User();
-        user.setId(1L);
-        user.setUsername("Bob");
+        User user = users.get(0);
         user.setRoles(Collections.singleton(Role.ADMIN));
 
-        when(userRepository.save(user)).thenReturn(user);
+        userService.save(user);
 
-        assertEquals(user, userService.save(user));
-        assertNotNull(user.getId());
-        assertTrue(user.getUsername().equals("Bob"));
-        assertTrue(CoreMatchers.is(user.getRoles()).matches(Collections.singleton(Role.ADMIN)));
+        assertEquals(Collections.singleton(Role.ADMIN), userRepository.findByUsername(user.getUsername()).getRoles());
     }
 
     @Test
     public void updateProfileInfoTest() {
-        User user = new User();
-        user.setPassword("test");
-        user.setEmail("test@test.com");
+        User user = users.get(0);
+        user.setEmail("changed-" + user.getEmail());
+
+        userService.save(user);
 
-        when(userRepository.save(user)).thenReturn(user);
+        assertEquals(user.getEmail(), userRepository.findByUsername(user.getUsername()).getEmail());
+    }
+
+    @Test
+    public void userListIsSearchedAndPaged() throws Exception {
+        mockMvc.perform(get("/user").with(user(admin))
+                        .param("search", "  " + prefix.toUpperCase() + "  ")
+                        .param("page", "1")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("admin/userList"))
+                .andExpect(model().attribute("search", prefix.toUpperCase()))
+                .andExpect(model().attribute("url", "/user?search=" + prefix.toUpperCase()))
+                .andExpect(model().attribute("page", allOf(
+                        hasProperty("totalElements", is(5L)),
+                        hasProperty("totalPages", is(3)))))
+                .andExpect(model().attribute("users", contains(
+                        allOf(hasProperty("username", is(prefix + "-3")), hasProperty("roles", contains(Role.USER))),
+                        allOf(hasProperty("username", is(prefix + "-4")), hasProperty("roles", contains(Role.USER))))))
+                .andExpect(content().string(containsString(
+                        "href=\"/user?search=" + prefix.toUpperCase() + "&amp;page=0&amp;size=2\"")))
+                .andExpect(content().string(containsString(
+                        "href=\"/user?search=" + prefix.toUpperCase() + "&amp;page=2&amp;size=2\"")))
+                .andExpect(content().string(containsString("value=\"" + prefix.toUpperCase() + "\"")));
+    }
+
+    @Test
+    public void userListIsSearchedByEmail() throws Exception {
+        mockMvc.perform(get("/user").with(user(admin)).param("search", "box-" + prefix + "-2"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("users", contains(hasProperty("username", is(prefix + "-2")))));
+    }
 
-        assertEquals(user.getPassword(), "test");
-        assertEquals(user.getEmail(), "test@test.com");
-        assertEquals(user, userService.save(user));
+    @Test
+    public void searchIsEncodedInPagerLinks() throws Exception {
+        mockMvc.perform(get("/user").with(user(admin)).param("search", "no such user"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("url", "/user?search=no%20such%20user"))
+                .andExpect(model().attribute("users", empty()));
+    }
+
+    @Test
+    public void userListWithoutSearchShowsEveryUser() throws Exception {
+        mockMvc.perform(get("/user").with(user(admin)).param("search", " ").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("search", nullValue()))
+                .andExpect(model().attribute("url", "/user"))
+                .andExpect(model().attribute("page", hasProperty("totalElements", is(userRepository.count()))))
+                .andExpect(content().string(containsString("href=\"/user?page=1&amp;size=2\"")));
+    }
+
+    @Test
+    public void userListIsForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/user").with(user(users.get(0))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void userListQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mockMvc.perform(get("/user").with(user(admin)).param("search", prefix).param("size", "2"))
+                .andExpect(status().isOk());
+
+        queryCounter.assertAtMost(USER_LIST_QUERY_BUDGET);
+        queryCounter.assertNoRepeatedStatements();
+    }
+
+    private User saveUser(String username, String email, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}password");
+        user.setEmail(email);
+        user.setActive(true);
+        user.setRoles(Collections.singleton(role));
+        user.setCandleList(new ArrayList<>());
+        User saved = userRepository.save(user);
+        users.add(saved);
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,210 @@
+package ru.ellada.ecommerce.repos;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.config.QueryCounter;
+import ru.ellada.ecommerce.domain.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the plans of the statements the repositories really execute.
+ * The statements are captured by the {@link QueryCounter} while the repository method runs against
+ * a separate embedded database filled with enough rows for the planner to prefer indexes.
+ * Every captured statement is explained with sample values of its bind parameters
+ * and must not scan a whole large table.
+ */
+@SpringBootTest
+@Import(QueryCounter.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest {
+    private static final int USERS = 20_000;
+
+    private static final long SAMPLE_ID = 10_000;
+
+    private static final String[] LARGE_TABLES = {"usr", "user_role", "usr_candle_list", "orders",
+            "orders_candle_list", "password_reset_token"};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User sampleUser;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, "plan_regression");
+    }
+
+    @BeforeAll
+    public void seed() {
+        if (jdbcTemplate.queryForObject("select count(*) from usr where id = ?", Long.class, SAMPLE_ID) > 0) {
+            return;
+        }
+        jdbcTemplate.execute("insert into usr (id, activation_code, active, email, password, username) " +
+                "select i, 'code' || i, true, 'user' || i || '@test.ru', 'password', 'user' || i " +
+                "from generate_series(100, " + USERS + ") i");
+        jdbcTemplate.execute("insert into user_role (user_id, roles) " +
+                "select i, 'USER' from generate_series(100, " + USERS + ") i");
+        jdbcTemplate.execute("insert into usr_candle_list (user_id, candle_list_id) " +
+                "select u, (select min(id) from candle) from generate_series(100, " + USERS + ") u");
+        jdbcTemplate.execute("insert into orders (id, address, city, date, email, first_name, last_name, " +
+                "phone_number, post_index, total_price, user_id) " +
+                "select i, 'address', 'city', current_date, 'user@test.ru', 'first', 'last', '1', 123456, 1, " +
+                "100 + i % (" + USERS + " - 100) from generate_series(1, " + USERS * 2 + ") i");
+        jdbcTemplate.execute("insert into orders_candle_list (order_id, candle_list_id, candle_list_order) " +
+                "select i, (select min(id) from candle), 0 from generate_series(1, " + USERS * 2 + ") i");
+        jdbcTemplate.execute("insert into password_reset_token (id, token, expiry_date, user_id) " +
+                "select i, 'token' || i, now() + (i % 2) * interval '1 day', i " +
+                "from generate_series(100, " + USERS + ") i");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @BeforeEach
+    public void setUp() {
+        sampleUser = userRepository.findById(SAMPLE_ID).orElseThrow();
+    }
+
+    @Test
+    public void findByUsername() throws SQLException {
+        List<String> statements = capture(() -> userRepository.findByUsername("user10000"));
+
+        assertPlansUseIndexes(statements, "user10000");
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("user_role")));
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("usr_candle_list")));
+    }
+
+    @Test
+    public void findUserByEmail() throws SQLException {
+        assertPlansUseIndexes(capture(() -> userRepository.findUserByEmail("user10000@test.ru")), "user10000@test.ru");
+    }
+
+    @Test
+    public void findByActivationCode() throws SQLException {
+        assertPlansUseIndexes(capture(() -> userRepository.findByActivationCode("code10000")), "code10000");
+    }
+
+    @Test
+    public void searchSummaries() throws SQLException {
+        List<String> statements = capture(() -> userRepository.searchSummaries("user1000%", PageRequest.of(0, 20)));
+
+        assertPlansUseIndexes(statements, "user1000%");
+    }
+
+    @Test
+    public void findOrderByUser() throws SQLException {
+        List<String> statements = capture(() -> orderRepository.findOrderByUser(sampleUser));
+
+        assertPlansUseIndexes(statements, null);
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("orders_candle_list")));
+    }
+
+    @Test
+    public void findTokenByToken() throws SQLException {
+        assertPlansUseIndexes(capture(() -> passwordResetTokenRepository.findByToken("token10000")), "token10000");
+    }
+
+    @Test
+    public void findTokenByUser() throws SQLException {
+        assertPlansUseIndexes(capture(() -> passwordResetTokenRepository.findByUser(sampleUser)), null);
+    }
+
+    @Test
+    public void deleteAllExpiredSince() throws SQLException {
+        Date dayAgo = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<String> statements = capture(() -> transactionTemplate.executeWithoutResult(
+                status -> passwordResetTokenRepository.deleteAllExpiredSince(dayAgo)));
+
+        assertPlansUseIndexes(statements, null);
+    }
+
+    /**
+     * Runs the repository call and returns the statements it executed.
+     *
+     * @param call repository call.
+     * @return executed statements in order.
+     */
+    private List<String> capture(Runnable call) {
+        queryCounter.reset();
+        call.run();
+        List<String> statements = queryCounter.getStatements();
+        assertFalse(statements.isEmpty(), "No statements were executed");
+        return statements;
+    }
+
+    /**
+     * Explains every statement and fails when the plan scans a whole large table.
+     * String parameters are bound to the given sample, numbers to the sample id, dates to the current time.
+     *
+     * @param statements  statements to explain.
+     * @param stringValue value of the string parameters.
+     */
+    private void assertPlansUseIndexes(List<String> statements, String stringValue) throws SQLException {
+        for (String sql : statements) {
+            String plan = explain(sql, stringValue);
+            for (String table : LARGE_TABLES) {
+                assertFalse(plan.contains("Seq Scan on " + table + " "),
+                        "Statement scans the whole " + table + " table:\n" + sql + "\n" + plan);
+            }
+        }
+    }
+
+    private String explain(String sql, String stringValue) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                String type = statement.getParameterMetaData().getParameterTypeName(i);
+                if (type.startsWith("timestamp") || type.equals("date")) {
+                    statement.setTimestamp(i, new Timestamp(System.currentTimeMillis()));
+                } else if (type.startsWith("int")) {
+                    statement.setLong(i, SAMPLE_ID);
+                } else {
+                    statement.setString(i, stringValue);
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.add(resultSet.getString(1));
+                }
+            }
+        }
+        return String.join("\n", plan) + "\n";
+    }
+}
@@ -0,0 +1,84 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void delegatesHashing() {
+        PasswordEncoder delegate = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(delegate.encode("password")).thenReturn("hash");
+        Mockito.when(delegate.matches("password", "hash")).thenReturn(true);
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(1));
+
+        assertEquals("hash", passwordEncoder.encode("password"));
+        assertTrue(passwordEncoder.matches("password", "hash"));
+    }
+
+    @Test
+    public void fullQueueRejectsHash() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        passwordEncoder = new BoundedPasswordEncoder(blockingEncoder(started), 1, 1, Duration.ofSeconds(10));
+
+        callers.submit(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        callers.submit(() -> passwordEncoder.encode("queued"));
+        waitForQueuedHash();
+
+        assertThrows(AuthenticationServiceException.class, () -> passwordEncoder.encode("rejected"));
+    }
+
+    @Test
+    public void slowHashTimesOut() {
+        passwordEncoder = new BoundedPasswordEncoder(blockingEncoder(new CountDownLatch(1)), 1, 1,
+                Duration.ofMillis(100));
+
+        assertThrows(AuthenticationServiceException.class, () -> passwordEncoder.matches("password", "hash"));
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started) {
+        PasswordEncoder delegate = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(delegate.encode(Mockito.any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        Mockito.when(delegate.matches(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        return delegate;
+    }
+
+    private void waitForQueuedHash() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (passwordEncoder.queuedHashes() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
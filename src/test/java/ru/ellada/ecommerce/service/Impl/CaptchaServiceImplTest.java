@@ -0,0 +1,151 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import ru.ellada.ecommerce.domain.dto.CaptchaResponseDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptchaServiceImplTest {
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile int status = 200;
+
+    private volatile String body = "{\"success\": true}";
+
+    private volatile long delayMs;
+
+    private volatile String lastRequest;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/siteverify", exchange -> {
+            requests.incrementAndGet();
+            lastRequest = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void verifiedResponse() {
+        CaptchaServiceImpl captchaService = captchaService(false);
+
+        assertTrue(captchaService.verify("token"));
+        assertEquals("secret=secret&response=token", lastRequest);
+        assertEquals(1, meterRegistry.get("captcha.verify").tag("outcome", "passed").timer().count());
+    }
+
+    @Test
+    public void rejectedResponse() {
+        body = "{\"success\": false, \"error-codes\": [\"invalid-input-response\"]}";
+        CaptchaServiceImpl captchaService = captchaService(true);
+
+        assertFalse(captchaService.verify("token"));
+        assertEquals(CircuitBreaker.State.CLOSED, captchaService.getCircuitState());
+    }
+
+    @Test
+    public void serverErrorUsesFailPolicy() {
+        status = 500;
+
+        assertFalse(captchaService(false).verify("token"));
+        assertTrue(captchaService(true).verify("token"));
+    }
+
+    @Test
+    public void slowServerTimesOut() {
+        delayMs = 1000;
+        CaptchaServiceImpl captchaService = captchaService(false);
+
+        long start = System.currentTimeMillis();
+        assertFalse(captchaService.verify("token"));
+        assertTrue(System.currentTimeMillis() - start < 900);
+    }
+
+    @Test
+    public void openCircuitSkipsServer() {
+        status = 500;
+        CaptchaServiceImpl captchaService = captchaService(false);
+
+        captchaService.verify("token");
+        captchaService.verify("token");
+        assertEquals(CircuitBreaker.State.OPEN, captchaService.getCircuitState());
+
+        assertFalse(captchaService.verify("token"));
+        assertEquals(2, requests.get());
+        assertEquals(2, meterRegistry.get("captcha.verify").tag("outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("captcha.short.circuited").counter().count());
+    }
+
+    @Test
+    public void unexpectedErrorInTrialCallOpensCircuit() throws IOException {
+        ObjectMapper objectMapper = Mockito.spy(new ObjectMapper());
+        CaptchaServiceImpl captchaService = captchaService(false, 0, objectMapper);
+        status = 500;
+        captchaService.verify("token");
+        captchaService.verify("token");
+        assertEquals(CircuitBreaker.State.OPEN, captchaService.getCircuitState());
+
+        status = 200;
+        Mockito.doThrow(new IllegalStateException("unexpected response"))
+                .when(objectMapper).readValue(ArgumentMatchers.any(byte[].class), ArgumentMatchers.eq(CaptchaResponseDto.class));
+
+        assertFalse(captchaService.verify("token"));
+        assertEquals(CircuitBreaker.State.OPEN, captchaService.getCircuitState());
+
+        Mockito.doCallRealMethod()
+                .when(objectMapper).readValue(ArgumentMatchers.any(byte[].class), ArgumentMatchers.eq(CaptchaResponseDto.class));
+        assertTrue(captchaService.verify("token"));
+        assertEquals(CircuitBreaker.State.CLOSED, captchaService.getCircuitState());
+    }
+
+    @Test
+    public void emptyBodyIsFailure() {
+        body = "null";
+        CaptchaServiceImpl captchaService = captchaService(true);
+
+        assertTrue(captchaService.verify("token"));
+        assertEquals(1, meterRegistry.get("captcha.verify").tag("outcome", "error").timer().count());
+    }
+
+    private CaptchaServiceImpl captchaService(boolean failOpen) {
+        return captchaService(failOpen, 60_000, new ObjectMapper());
+    }
+
+    private CaptchaServiceImpl captchaService(boolean failOpen, long openMs, ObjectMapper objectMapper) {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/siteverify";
+        return new CaptchaServiceImpl(url, "secret", 500, 300, failOpen, 2, openMs, objectMapper, meterRegistry);
+    }
+}
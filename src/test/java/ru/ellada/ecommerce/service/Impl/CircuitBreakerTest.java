@@ -0,0 +1,32 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    @Test
+    public void halfOpenTrialClosesOrReopensCircuit() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 1000, now::get);
+
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertFalse(circuitBreaker.tryAcquire());
+
+        now.set(1000);
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        now.set(2000);
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+}
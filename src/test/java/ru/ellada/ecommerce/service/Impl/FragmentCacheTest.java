@@ -0,0 +1,74 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FragmentCache fragmentCache = new FragmentCache(true, 2, meterRegistry);
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    public void fragmentIsRenderedOnce() {
+        assertEquals("card 1", fragmentCache.getCandle("card/1", () -> render("card 1")));
+        assertEquals("card 1", fragmentCache.getCandle("card/1", () -> render("card 1")));
+
+        assertEquals(1, renders.get());
+        assertEquals(1, meterRegistry.counter("fragment.cache", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("fragment.cache", "result", "miss").count());
+    }
+
+    @Test
+    public void catalogChangeDropsOnlyCandles() {
+        fragmentCache.getLayout("footer", () -> render("footer"));
+        fragmentCache.getCandle("card/1", () -> render("card 1"));
+
+        fragmentCache.onCatalogChanged(new CatalogChangedEvent());
+
+        assertEquals("new card 1", fragmentCache.getCandle("card/1", () -> render("new card 1")));
+        assertEquals("footer", fragmentCache.getLayout("footer", () -> render("new footer")));
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    public void fragmentRenderedDuringCatalogChangeIsNotCached() {
+        fragmentCache.getCandle("card/1", () -> {
+            fragmentCache.onCatalogChanged(new CatalogChangedEvent());
+            return render("old card 1");
+        });
+
+        assertEquals("new card 1", fragmentCache.getCandle("card/1", () -> render("new card 1")));
+    }
+
+    @Test
+    public void candlesAreLimitedByMaxEntries() {
+        fragmentCache.getCandle("card/1", () -> render("card 1"));
+        fragmentCache.getCandle("card/2", () -> render("card 2"));
+        fragmentCache.getCandle("card/3", () -> render("card 3"));
+
+        assertEquals(2, fragmentCache.size());
+    }
+
+    @Test
+    public void disabledCacheRendersEveryTime() {
+        FragmentCache disabledCache = new FragmentCache(false, 2, meterRegistry);
+
+        disabledCache.getLayout("footer", () -> render("footer"));
+        disabledCache.getLayout("footer", () -> render("footer"));
+
+        assertEquals(2, renders.get());
+        assertEquals(0, disabledCache.size());
+    }
+
+    private String render(String fragment) {
+        renders.incrementAndGet();
+        return fragment;
+    }
+}
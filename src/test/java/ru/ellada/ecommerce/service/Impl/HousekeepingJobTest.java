@@ -0,0 +1,75 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.ellada.ecommerce.repos.PasswordResetTokenRepository;
+import ru.ellada.ecommerce.repos.UserRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+class HousekeepingJobTest {
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    private UserRepository userRepository;
+
+    private SchedulerLock schedulerLock;
+
+    private HousekeepingJob housekeepingJob;
+
+    @BeforeEach
+    public void setUp() {
+        passwordResetTokenRepository = Mockito.mock(PasswordResetTokenRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        schedulerLock = Mockito.mock(SchedulerLock.class);
+        housekeepingJob = new HousekeepingJob(passwordResetTokenRepository, userRepository, schedulerLock,
+                Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(housekeepingJob, "chunkSize", 100);
+        ReflectionTestUtils.setField(housekeepingJob, "chunkPauseMs", 0L);
+        ReflectionTestUtils.setField(housekeepingJob, "unactivatedUserRetentionDays", 7L);
+        ReflectionTestUtils.setField(housekeepingJob, "maxRunMinutes", 10L);
+    }
+
+    @Test
+    public void deletesInChunksUntilChunkIsNotFull() {
+        Mockito.when(schedulerLock.tryLock("housekeeping", Duration.ofMinutes(10))).thenReturn(true);
+        Mockito.when(passwordResetTokenRepository.deleteExpiredBatch(ArgumentMatchers.any(), ArgumentMatchers.eq(100)))
+                .thenReturn(100, 100, 3);
+        Mockito.when(userRepository.deleteStaleUnactivatedBatch(ArgumentMatchers.any(), ArgumentMatchers.eq(100)))
+                .thenReturn(0);
+
+        housekeepingJob.run();
+
+        Mockito.verify(passwordResetTokenRepository, Mockito.times(3))
+                .deleteExpiredBatch(ArgumentMatchers.any(), ArgumentMatchers.eq(100));
+        Mockito.verify(userRepository).deleteStaleUnactivatedBatch(
+                ArgumentMatchers.argThat(createdBefore -> createdBefore.isBefore(LocalDateTime.now().minusDays(6))),
+                ArgumentMatchers.eq(100));
+        Mockito.verify(schedulerLock).unlock("housekeeping");
+    }
+
+    @Test
+    public void skipsRunWhenLockIsHeld() {
+        Mockito.when(schedulerLock.tryLock(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(false);
+
+        housekeepingJob.run();
+
+        Mockito.verifyNoInteractions(passwordResetTokenRepository, userRepository);
+        Mockito.verify(schedulerLock, Mockito.never()).unlock(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    public void releasesLockWhenDeleteFails() {
+        Mockito.when(schedulerLock.tryLock(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(passwordResetTokenRepository.deleteExpiredBatch(ArgumentMatchers.any(), ArgumentMatchers.anyInt()))
+                .thenThrow(new IllegalStateException("database is down"));
+
+        housekeepingJob.run();
+
+        Mockito.verify(schedulerLock).unlock("housekeeping");
+    }
+}
@@ -0,0 +1,112 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyKeyStoreTest {
+    private final Clock clock = Clock.fixed(Instant.parse("2022-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void replayReturnsFirstResult() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 100, clock);
+        AtomicInteger calls = new AtomicInteger();
+
+        Long first = store.execute("user:key", () -> (long) calls.incrementAndGet());
+        Long replay = store.execute("user:key", () -> (long) calls.incrementAndGet());
+
+        assertEquals(1L, first);
+        assertEquals(1L, replay);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void failedActionReleasesKey() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 100, clock);
+
+        assertThrows(IllegalStateException.class, () -> store.execute("user:key", () -> {
+            throw new IllegalStateException();
+        }));
+        Long retry = store.execute("user:key", () -> 2L);
+
+        assertEquals(2L, retry);
+    }
+
+    @Test
+    public void errorReleasesKey() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 100, clock);
+
+        assertThrows(StackOverflowError.class, () -> store.execute("user:key", () -> {
+            throw new StackOverflowError();
+        }));
+        Long retry = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> store.execute("user:key", () -> 2L));
+
+        assertEquals(2L, retry);
+    }
+
+    @Test
+    public void expiredKeyExecutesAgain() {
+        MutableClock mutableClock = new MutableClock();
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 100, mutableClock);
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("user:key", calls::incrementAndGet);
+        mutableClock.millis += Duration.ofMinutes(11).toMillis();
+        Integer result = store.execute("user:key", calls::incrementAndGet);
+
+        assertEquals(2, result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void nullKeyIsNotStored() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 100, clock);
+
+        store.execute(null, () -> 1L);
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void storeIsBounded() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(Duration.ofMinutes(10), 2, clock);
+
+        for (long i = 0; i < 5; i++) {
+            long id = i;
+            store.execute("user:" + i, () -> id);
+        }
+
+        assertTrue(store.size() <= 2);
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
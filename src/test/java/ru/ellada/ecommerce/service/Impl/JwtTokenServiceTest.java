@@ -0,0 +1,101 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenServiceTest {
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    private final JwtTokenService jwtTokenService = new JwtTokenService("secret", Duration.ofMinutes(15),
+            Duration.ofDays(7), clock);
+
+    @Test
+    public void accessTokenRestoresUser() {
+        User user = jwtTokenService.parseAccessToken(jwtTokenService.createAccessToken(user()));
+
+        assertEquals(7L, user.getId());
+        assertEquals("admin", user.getUsername());
+        assertEquals("admin@test.ru", user.getEmail());
+        assertEquals(Collections.singleton(Role.ADMIN), user.getRoles());
+        assertTrue(user.isEnabled());
+        assertNull(user.getPassword());
+    }
+
+    @Test
+    public void expiredAccessTokenIsRejected() {
+        String token = jwtTokenService.createAccessToken(user());
+
+        clock.advance(Duration.ofMinutes(16));
+
+        assertNull(jwtTokenService.parseAccessToken(token));
+    }
+
+    @Test
+    public void tokenSignedWithAnotherSecretIsRejected() {
+        JwtTokenService anotherService = new JwtTokenService("another", Duration.ofMinutes(15),
+                Duration.ofDays(7), clock);
+
+        assertNull(jwtTokenService.parseAccessToken(anotherService.createAccessToken(user())));
+        assertNull(jwtTokenService.parseAccessToken("garbage"));
+    }
+
+    @Test
+    public void tokenTypesAreNotInterchangeable() {
+        String accessToken = jwtTokenService.createAccessToken(user());
+        String refreshToken = jwtTokenService.createRefreshToken(user());
+
+        assertEquals("admin", jwtTokenService.parseRefreshToken(refreshToken));
+        assertNull(jwtTokenService.parseRefreshToken(accessToken));
+        assertNull(jwtTokenService.parseAccessToken(refreshToken));
+    }
+
+    @Test
+    public void jwtModeRequiresSecret() {
+        assertThrows(IllegalStateException.class, () -> new JwtTokenService("jwt", "", 15, 60));
+        assertThrows(IllegalStateException.class, () -> new JwtTokenService("jwt", null, 15, 60));
+    }
+
+    @Test
+    public void jwtModeRejectsPlaceholderSecret() {
+        assertThrows(IllegalStateException.class,
+                () -> new JwtTokenService("jwt", "ellada-local-development-secret-change-me", 15, 60));
+        assertThrows(IllegalStateException.class, () -> new JwtTokenService("jwt", "Secret", 15, 60));
+    }
+
+    @Test
+    public void jwtModeRejectsShortSecret() {
+        String shortSecret = "a".repeat(JwtTokenService.MIN_SECRET_BYTES - 1);
+
+        assertThrows(IllegalStateException.class, () -> new JwtTokenService("jwt", shortSecret, 15, 60));
+    }
+
+    @Test
+    public void jwtModeAcceptsLongSecret() {
+        JwtTokenService service = new JwtTokenService("jwt", "a".repeat(JwtTokenService.MIN_SECRET_BYTES), 15, 60);
+
+        assertEquals("admin", service.parseRefreshToken(service.createRefreshToken(user())));
+    }
+
+    @Test
+    public void sessionModeDoesNotNeedSecret() {
+        assertDoesNotThrow(() -> new JwtTokenService("session", "", 15, 60));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("admin");
+        user.setEmail("admin@test.ru");
+        user.setPassword("password");
+        user.setActive(true);
+        user.setRoles(Collections.singleton(Role.ADMIN));
+        return user;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private final Clock start = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+
+    @Test
+    public void usernameBurstIsThrottled() {
+        LoginThrottle loginThrottle = throttle(start);
+
+        assertEquals(0, loginThrottle.tryAcquire("admin", "10.0.0.1"));
+        assertEquals(0, loginThrottle.tryAcquire("Admin", "10.0.0.2"));
+        assertEquals(0, loginThrottle.tryAcquire("admin", "10.0.0.3"));
+        assertEquals(20_000, loginThrottle.tryAcquire("admin ", "10.0.0.4"));
+        assertEquals(0, loginThrottle.tryAcquire("user", "10.0.0.5"));
+    }
+
+    @Test
+    public void addressBurstIsThrottled() {
+        LoginThrottle loginThrottle = throttle(start);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, loginThrottle.tryAcquire("user" + i, "10.0.0.1"));
+        }
+        assertTrue(loginThrottle.tryAcquire("another", "10.0.0.1") > 0);
+        assertEquals(0, loginThrottle.tryAcquire("another", "10.0.0.2"));
+    }
+
+    @Test
+    public void tokensAreRestoredOverTime() {
+        MutableClock clock = new MutableClock(Instant.EPOCH);
+        LoginThrottle loginThrottle = throttle(clock);
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.tryAcquire("admin", "10.0.0.1");
+        }
+
+        clock.advance(Duration.ofSeconds(19));
+        assertEquals(1_000, loginThrottle.tryAcquire("admin", "10.0.0.1"));
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(0, loginThrottle.tryAcquire("admin", "10.0.0.1"));
+    }
+
+    @Test
+    public void bucketsAreBounded() {
+        LoginThrottle loginThrottle = new LoginThrottle(new LoginThrottle.Limit(3, 3),
+                new LoginThrottle.Limit(0, 0), 10, start);
+
+        for (int i = 0; i < 100; i++) {
+            loginThrottle.tryAcquire("user" + i, "10.0.0.1");
+        }
+
+        assertTrue(loginThrottle.size() <= 10);
+    }
+
+    private LoginThrottle throttle(Clock clock) {
+        return new LoginThrottle(new LoginThrottle.Limit(3, 3), new LoginThrottle.Limit(5, 60), 100, clock);
+    }
+}
@@ -0,0 +1,205 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import javax.mail.internet.MimeMessage;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailDeliveryQueueTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MailDeliveryQueue mailDeliveryQueue;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        mailDeliveryQueue.shutdown();
+    }
+
+    @Test
+    public void submittedMessageIsDelivered() throws Exception {
+        PooledJavaMailSender javaMailSender = new PooledJavaMailSender(1, 60_000);
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings(1, 3));
+
+        mailDeliveryQueue.submit(message("test@test.ru")).get(5, TimeUnit.SECONDS);
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        mailDeliveryQueue.shutdown();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("Activation code", received.getSubject());
+        assertEquals(1, meterRegistry.get("mail.send").timer().count());
+        assertEquals(1, javaMailSender.getIdleCount());
+        javaMailSender.destroy();
+    }
+
+    @Test
+    public void pooledConnectionIsReusedForBatches() throws Exception {
+        PooledJavaMailSender javaMailSender = new PooledJavaMailSender(1, 60_000);
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings(1, 3));
+
+        javaMailSender.send(message("first@test.ru"), message("second@test.ru"));
+        javaMailSender.send(message("third@test.ru"));
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        assertEquals(1, javaMailSender.getIdleCount());
+        javaMailSender.destroy();
+        assertEquals(0, javaMailSender.getIdleCount());
+    }
+
+    @Test
+    public void throttledMessageIsDeferred() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        MailDeliveryQueue.Settings settings = settings(1, 3);
+        settings.perDomainPerMinute = 1;
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings);
+
+        mailDeliveryQueue.submit(message("first@test.ru"));
+        mailDeliveryQueue.submit(message("second@test.ru"));
+        Thread.sleep(500);
+
+        Mockito.verify(javaMailSender, Mockito.times(1)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        assertTrue(mailDeliveryQueue.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    public void failedMessageIsRetriedAndMovedToDeadLetters() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        Mockito.doThrow(new MailSendException("smtp is down"))
+                .when(javaMailSender).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings(1, 3));
+
+        CompletableFuture<Void> result = mailDeliveryQueue.submit(message("test@test.ru"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof MailSendException);
+        assertEquals(1, mailDeliveryQueue.getDeadLetters().size());
+        assertEquals(3, mailDeliveryQueue.getDeadLetters().get(0).getAttempts());
+        assertEquals(3.0, meterRegistry.get("mail.send.failures").counter().count());
+        Mockito.verify(javaMailSender, Mockito.times(3)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+    }
+
+    @Test
+    public void partiallyFailedBatchReportsEachMessage() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        SimpleMailMessage delivered = message("first@test.ru");
+        SimpleMailMessage failed = message("second@test.ru");
+        Mockito.doThrow(new MailSendException(Map.of(failed, new IllegalStateException("mailbox is full"))))
+                .when(javaMailSender).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings(1, 1));
+
+        CompletableFuture<Void> deliveredResult = mailDeliveryQueue.submit(delivered);
+        CompletableFuture<Void> failedResult = mailDeliveryQueue.submit(failed);
+
+        deliveredResult.get(5, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> failedResult.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void keyedMessageIsSentAgainOnlyAfterItFailed() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        Mockito.doThrow(new MailSendException("smtp is down")).doNothing()
+                .when(javaMailSender).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings(1, 1));
+
+        CompletableFuture<Void> failed = mailDeliveryQueue.submit("outbox-1", message("test@test.ru"));
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        mailDeliveryQueue.submit("outbox-1", message("test@test.ru")).get(5, TimeUnit.SECONDS);
+        mailDeliveryQueue.submit("outbox-1", message("test@test.ru")).get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(javaMailSender, Mockito.times(2)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+    }
+
+    @Test
+    public void callerTimeoutDoesNotAffectKeyedDelivery() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        MailDeliveryQueue.Settings settings = settings(1, 3);
+        settings.perDomainPerMinute = 1;
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings);
+        mailDeliveryQueue.submit(message("first@test.ru")).get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Void> first = mailDeliveryQueue.submit("outbox-1", message("second@test.ru"));
+        first.orTimeout(10, TimeUnit.MILLISECONDS);
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> retry = mailDeliveryQueue.submit("outbox-1", message("second@test.ru"));
+
+        assertFalse(retry.isDone());
+        Mockito.verify(javaMailSender, Mockito.times(1)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+    }
+
+    @Test
+    public void messageWaitingForRetryIsMovedToDeadLettersOnShutdown() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        Mockito.doThrow(new MailSendException("smtp is down"))
+                .when(javaMailSender).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        MailDeliveryQueue.Settings settings = settings(1, 3);
+        settings.initialBackoffMs = 60_000;
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings);
+
+        CompletableFuture<Void> result = mailDeliveryQueue.submit(message("test@test.ru"));
+        Thread.sleep(500);
+        mailDeliveryQueue.shutdown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("Mail queue was shut down", error.getCause().getMessage());
+        assertEquals(1, mailDeliveryQueue.getDeadLetters().size());
+        assertEquals(1, mailDeliveryQueue.getDeadLetters().get(0).getAttempts());
+    }
+
+    @Test
+    public void throttledMessageIsMovedToDeadLettersOnShutdown() throws Exception {
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        MailDeliveryQueue.Settings settings = settings(1, 3);
+        settings.perDomainPerMinute = 1;
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, meterRegistry, settings);
+
+        mailDeliveryQueue.submit(message("first@test.ru")).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> throttled = mailDeliveryQueue.submit(message("second@test.ru"));
+        Thread.sleep(500);
+        mailDeliveryQueue.shutdown();
+
+        assertThrows(ExecutionException.class, () -> throttled.get(1, TimeUnit.SECONDS));
+        assertEquals(1, mailDeliveryQueue.getDeadLetters().size());
+    }
+
+    private MailDeliveryQueue.Settings settings(int workers, int maxAttempts) {
+        MailDeliveryQueue.Settings settings = new MailDeliveryQueue.Settings();
+        settings.workers = workers;
+        settings.maxAttempts = maxAttempts;
+        settings.initialBackoffMs = 10;
+        settings.capacity = 10;
+        settings.deadLetterCapacity = 10;
+        settings.messagesPerSecond = 0;
+        settings.perDomainPerMinute = 0;
+        return settings;
+    }
+
+    private SimpleMailMessage message(String emailTo) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("shop@test.ru");
+        message.setTo(emailTo);
+        message.setSubject("Activation code");
+        message.setText("Hello");
+        return message;
+    }
+}
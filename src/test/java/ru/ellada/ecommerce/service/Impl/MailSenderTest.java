@@ -0,0 +1,100 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailSenderTest {
+    private JavaMailSender javaMailSender;
+
+    private MailDeliveryQueue mailDeliveryQueue;
+
+    private MailSender mailSender;
+
+    @BeforeEach
+    public void setUp() {
+        javaMailSender = Mockito.mock(JavaMailSender.class);
+    }
+
+    private void createSender(double perDomainPerMinute) {
+        MailDeliveryQueue.Settings settings = new MailDeliveryQueue.Settings();
+        settings.workers = 1;
+        settings.maxAttempts = 2;
+        settings.initialBackoffMs = 10;
+        settings.messagesPerSecond = 0;
+        settings.perDomainPerMinute = perDomainPerMinute;
+        mailDeliveryQueue = new MailDeliveryQueue(javaMailSender, new SimpleMeterRegistry(), settings);
+
+        mailSender = new MailSender(mailDeliveryQueue);
+        ReflectionTestUtils.setField(mailSender, "username", "shop@test.ru");
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        mailDeliveryQueue.shutdown();
+    }
+
+    @Test
+    public void sendGoesThroughQueue() throws Exception {
+        createSender(0);
+
+        mailSender.send("first@test.ru", "Activation code", "Hello").get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(javaMailSender, Mockito.times(1)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        Mockito.verify(javaMailSender, Mockito.never()).send(ArgumentMatchers.any(SimpleMailMessage.class));
+    }
+
+    @Test
+    public void sendIsThrottled() throws Exception {
+        createSender(1);
+
+        mailSender.send("first@test.ru", "Activation code", "Hello").get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> second = mailSender.send("second@test.ru", "Activation code", "Hello");
+
+        assertThrows(TimeoutException.class, () -> second.get(500, TimeUnit.MILLISECONDS));
+        Mockito.verify(javaMailSender, Mockito.times(1)).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+    }
+
+    @Test
+    public void sendFailsWhenQueueGivesUp() {
+        Mockito.doThrow(new MailSendException("smtp is down"))
+                .when(javaMailSender).send(ArgumentMatchers.<SimpleMailMessage[]>any());
+        createSender(0);
+
+        CompletableFuture<Void> result = mailSender.send("test@test.ru", "Activation code", "Hello");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("smtp is down", error.getCause().getMessage());
+        assertEquals(1, mailDeliveryQueue.getDeadLetters().size());
+    }
+
+    @Test
+    public void keyedMessageIsSentOnce() throws Exception {
+        createSender(0);
+
+        CompletableFuture<Void> first = mailSender.send("outbox-1", "test@test.ru", "Activation code", "Hello");
+        CompletableFuture<Void> retry = mailSender.send("outbox-1", "test@test.ru", "Activation code", "Hello");
+        CompletableFuture.allOf(first, retry).get(5, TimeUnit.SECONDS);
+        mailSender.send("outbox-1", "test@test.ru", "Activation code", "Hello").get(5, TimeUnit.SECONDS);
+
+        Collection<Invocation> invocations = Mockito.mockingDetails(javaMailSender).getInvocations();
+        assertEquals(1, invocations.size());
+        assertEquals(1, ((Object[]) invocations.iterator().next().getRawArguments()[0]).length);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailThrottleTest {
+    @Test
+    public void domainLimitDefersOnlyThatDomain() {
+        MailThrottle throttle = new MailThrottle(0, 2);
+
+        assertEquals(0, throttle.reserve("a@gmail.com", 0));
+        assertEquals(0, throttle.reserve("b@GMAIL.com", 0));
+        assertTrue(throttle.reserve("c@gmail.com", 0) > 0);
+        assertEquals(0, throttle.reserve("a@yandex.ru", 0));
+        assertEquals(0, throttle.reserve("c@gmail.com", 30_000));
+    }
+
+    @Test
+    public void globalLimitDefersAllRecipients() {
+        MailThrottle throttle = new MailThrottle(1, 0);
+
+        assertEquals(0, throttle.reserve("a@gmail.com", 0));
+        assertEquals(1000, throttle.reserve("a@yandex.ru", 0));
+        assertEquals(0, throttle.reserve("a@yandex.ru", 1000));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ObservedDataSourceTest {
+    private final List<String> executed = new ArrayList<>();
+
+    private final DataSource target = mock(DataSource.class);
+
+    private final Connection connection = mock(Connection.class);
+
+    private final DataSource dataSource = new ObservedDataSource(target, Collections.singletonList(
+            (sql, parameterTypes, elapsedNanos) -> executed.add(sql + " " + parameterTypes)));
+
+    @Test
+    public void preparedStatementReportsParameterTypes() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select * from usr where id = ? and username = ? and email = ?"))
+                .thenReturn(statement);
+
+        try (Connection observed = dataSource.getConnection();
+             PreparedStatement prepared = observed.prepareStatement(
+                     "select * from usr where id = ? and username = ? and email = ?")) {
+            prepared.setString(2, "admin");
+            prepared.setLong(1, 1L);
+            prepared.setNull(3, Types.VARCHAR);
+            prepared.executeQuery();
+            prepared.clearParameters();
+            prepared.setObject(1, 2);
+            prepared.executeQuery();
+        }
+
+        assertEquals(Arrays.asList(
+                "select * from usr where id = ? and username = ? and email = ? [Long, String, null]",
+                "select * from usr where id = ? and username = ? and email = ? [Integer]"), executed);
+        verify(statement, times(2)).executeQuery();
+        verify(statement).setString(2, "admin");
+        verify(connection).close();
+    }
+
+    @Test
+    public void failedStatementIsReported() throws SQLException {
+        Statement statement = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.execute("delete from usr")).thenThrow(new SQLException("denied"));
+
+        try (Connection observed = dataSource.getConnection()) {
+            Statement created = observed.createStatement();
+            SQLException exception = assertThrows(SQLException.class, () -> created.execute("delete from usr"));
+            assertEquals("denied", exception.getMessage());
+        }
+
+        assertEquals(Collections.singletonList("delete from usr []"), executed);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.repos.OrderRepository;
+import ru.ellada.ecommerce.repos.OutboxEventRepository;
+import ru.ellada.ecommerce.service.OutboxEventHandler;
+import ru.ellada.ecommerce.service.OutboxService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "outbox.relay.delay-ms=3600000")
+class OutboxRelayTest {
+    private static final long POISON_ID = -1L;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RecordingHandler recordingHandler;
+
+    @MockBean
+    private MailSender mailSender;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        outboxEventRepository.deleteAll();
+        recordingHandler.handled.clear();
+        recordingHandler.work.clear();
+    }
+
+    @Test
+    public void poisonEventDoesNotRollBackBatch() {
+        publish(1L);
+        publish(POISON_ID);
+        publish(2L);
+
+        int relayed = outboxService.relayBatch();
+
+        assertEquals(3, relayed);
+        assertEquals(List.of(1L, 2L), recordingHandler.handled);
+
+        List<OutboxEvent> left = outboxEventRepository.findAll();
+        assertEquals(1, left.size());
+        OutboxEvent poison = left.get(0);
+        assertEquals(POISON_ID, poison.getAggregateId());
+        assertEquals(1, poison.getAttempts());
+        assertNotNull(poison.getLastError());
+        assertTrue(poison.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    public void rescheduledEventIsNotDeliveredAgainAtOnce() {
+        publish(POISON_ID);
+
+        outboxService.relayBatch();
+        int relayed = outboxService.relayBatch();
+
+        assertEquals(0, relayed);
+        assertEquals(1, outboxEventRepository.findAll().get(0).getAttempts());
+    }
+
+    private void publish(Long aggregateId) {
+        transactionTemplate.executeWithoutResult(status -> outboxService.publish(OutboxEventType.ORDER_PLACED, aggregateId));
+    }
+
+    @Test
+    public void slowWorkRunsAfterCommitAndKeepsLease() {
+        CompletableFuture<Void> work = new CompletableFuture<>();
+        recordingHandler.work.put(3L, work);
+        publish(3L);
+
+        assertEquals(1, outboxService.relayBatch());
+        assertEquals(0, outboxService.relayBatch());
+
+        OutboxEvent claimed = outboxEventRepository.findAll().get(0);
+        assertEquals(0, claimed.getAttempts());
+        assertTrue(claimed.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(30)));
+
+        work.complete(null);
+
+        assertTrue(outboxEventRepository.findAll().isEmpty());
+    }
+
+    /**
+     * Records delivered events. The poison event fails inside a transactional repository call,
+     * which marks the surrounding transaction for rollback.
+     */
+    static class RecordingHandler implements OutboxEventHandler {
+        private final OrderRepository orderRepository;
+
+        private final List<Long> handled = new CopyOnWriteArrayList<>();
+
+        private final Map<Long, CompletableFuture<Void>> work = new ConcurrentHashMap<>();
+
+        RecordingHandler(OrderRepository orderRepository) {
+            this.orderRepository = orderRepository;
+        }
+
+        @Override
+        public boolean supports(OutboxEventType eventType) {
+            return eventType == OutboxEventType.ORDER_PLACED;
+        }
+
+        @Override
+        public CompletableFuture<Void> handle(OutboxEvent event) {
+            if (event.getAggregateId() == POISON_ID) {
+                orderRepository.findById(null);
+            }
+            handled.add(event.getAggregateId());
+            return work.getOrDefault(event.getAggregateId(), CompletableFuture.completedFuture(null));
+        }
+    }
+
+    @TestConfiguration
+    static class HandlerConfig {
+        @Bean
+        RecordingHandler recordingHandler(OrderRepository orderRepository) {
+            return new RecordingHandler(orderRepository);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.ellada.ecommerce.domain.OutboxEvent;
+import ru.ellada.ecommerce.domain.OutboxEventType;
+import ru.ellada.ecommerce.repos.OutboxEventRepository;
+import ru.ellada.ecommerce.service.OutboxEventHandler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxServiceImplTest {
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxEventHandler handler;
+
+    private OutboxServiceImpl outboxService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+        handler = Mockito.mock(OutboxEventHandler.class);
+        ObjectProvider<OutboxEventHandler> handlers = Mockito.mock(ObjectProvider.class);
+
+        Mockito.when(handler.supports(OutboxEventType.ORDER_PLACED)).thenReturn(true);
+        Mockito.when(handler.handle(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(null));
+        Mockito.when(handlers.orderedStream()).thenAnswer(invocation -> Stream.of(handler));
+
+        outboxService = new OutboxServiceImpl(outboxEventRepository, handlers, TransactionOperations.withoutTransaction());
+        ReflectionTestUtils.setField(outboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 10);
+        ReflectionTestUtils.setField(outboxService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(outboxService, "deliveryTimeoutMs", 5000L);
+    }
+
+    private OutboxEvent readyEvent(long id) {
+        OutboxEvent event = new OutboxEvent(OutboxEventType.ORDER_PLACED, 1L);
+        event.setId(id);
+        Mockito.when(outboxEventRepository.findById(id)).thenReturn(Optional.of(event));
+        return event;
+    }
+
+    @Test
+    public void deliveredEventIsDeleted() {
+        OutboxEvent event = readyEvent(1L);
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+
+        int relayed = outboxService.relayBatch();
+
+        assertEquals(1, relayed);
+        Mockito.verify(handler, Mockito.times(1)).handle(event);
+        Mockito.verify(outboxEventRepository, Mockito.times(1)).delete(event);
+    }
+
+    @Test
+    public void failedEventIsRescheduled() {
+        OutboxEvent event = readyEvent(1L);
+        LocalDateTime createdAt = event.getNextAttemptAt();
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+        Mockito.doThrow(new IllegalStateException("smtp is down")).when(handler).handle(event);
+
+        outboxService.relayBatch();
+
+        assertEquals(1, event.getAttempts());
+        assertEquals("smtp is down", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(createdAt));
+        Mockito.verify(outboxEventRepository, Mockito.times(0)).delete(event);
+    }
+
+    @Test
+    public void claimedEventIsHiddenForLease() {
+        OutboxEvent event = readyEvent(1L);
+        LocalDateTime createdAt = event.getNextAttemptAt();
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+        Mockito.when(outboxEventRepository.findById(1L)).thenReturn(Optional.empty());
+
+        outboxService.relayBatch();
+
+        assertFalse(event.getNextAttemptAt().isBefore(createdAt.plusSeconds(300)));
+        Mockito.verify(handler, Mockito.times(0)).handle(event);
+    }
+
+    @Test
+    public void failedEventDoesNotStopBatch() {
+        OutboxEvent failed = readyEvent(1L);
+        OutboxEvent delivered = readyEvent(2L);
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(failed, delivered));
+        Mockito.doThrow(new IllegalStateException("broken event")).when(handler).handle(failed);
+
+        int relayed = outboxService.relayBatch();
+
+        assertEquals(2, relayed);
+        assertEquals(1, failed.getAttempts());
+        Mockito.verify(outboxEventRepository, Mockito.times(0)).delete(failed);
+        Mockito.verify(outboxEventRepository, Mockito.times(1)).delete(delivered);
+    }
+
+    @Test
+    public void failedWorkIsRescheduled() {
+        OutboxEvent event = readyEvent(1L);
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+        Mockito.when(handler.handle(event)).thenReturn(CompletableFuture.failedFuture(
+                new IllegalStateException("mailbox is full")));
+
+        outboxService.relayBatch();
+
+        assertEquals(1, event.getAttempts());
+        assertEquals("mailbox is full", event.getLastError());
+        Mockito.verify(outboxEventRepository, Mockito.times(0)).delete(event);
+    }
+
+    @Test
+    public void eventIsDeletedWhenWorkCompletes() {
+        OutboxEvent event = readyEvent(1L);
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+        CompletableFuture<Void> work = new CompletableFuture<>();
+        Mockito.when(handler.handle(event)).thenReturn(work);
+
+        int relayed = outboxService.relayBatch();
+
+        assertEquals(1, relayed);
+        assertEquals(0, event.getAttempts());
+        Mockito.verify(outboxEventRepository, Mockito.times(0)).delete(event);
+
+        work.complete(null);
+
+        Mockito.verify(outboxEventRepository, Mockito.times(1)).delete(event);
+    }
+
+    @Test
+    public void slowWorkIsRescheduledAfterDeliveryTimeout() throws InterruptedException {
+        ReflectionTestUtils.setField(outboxService, "deliveryTimeoutMs", 50L);
+        OutboxEvent event = readyEvent(1L);
+        Mockito.when(outboxEventRepository.findReadyForDelivery(ArgumentMatchers.any(), ArgumentMatchers.eq(10),
+                ArgumentMatchers.any())).thenReturn(List.of(event));
+        Mockito.when(handler.handle(event)).thenReturn(new CompletableFuture<>());
+
+        outboxService.relayBatch();
+        Thread.sleep(500);
+
+        assertEquals(1, event.getAttempts());
+        Mockito.verify(outboxEventRepository, Mockito.times(0)).delete(event);
+    }
+
+    @Test
+    public void leaseHasToOutlastBatch() {
+        OutboxServiceImpl.checkLease(50, 3600, 60_000);
+
+        assertThrows(IllegalStateException.class, () -> OutboxServiceImpl.checkLease(50, 300, 60_000));
+        assertThrows(IllegalStateException.class, () -> OutboxServiceImpl.checkLease(50, 3000, 60_000));
+    }
+
+    @Test
+    public void backoffIsExponentialAndBounded() {
+        assertEquals(Duration.ofSeconds(2), OutboxServiceImpl.backoff(1));
+        assertEquals(Duration.ofSeconds(8), OutboxServiceImpl.backoff(3));
+        assertEquals(Duration.ofHours(1), OutboxServiceImpl.backoff(30));
+    }
+}
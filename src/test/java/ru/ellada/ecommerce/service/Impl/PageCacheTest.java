@@ -0,0 +1,73 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.ellada.ecommerce.service.CatalogChangedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+    private final MutableClock clock = new MutableClock(Instant.EPOCH);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PageCache pageCache = new PageCache(Duration.ofMinutes(5), 2, 1 << 20, meterRegistry, clock);
+
+    @Test
+    public void pageIsStoredCompressed() {
+        byte[] body = "<html>menu menu menu menu menu menu menu menu</html>".getBytes(StandardCharsets.UTF_8);
+        pageCache.put("/menu", "text/html;charset=UTF-8", body, pageCache.getVersion());
+
+        PageCache.Page page = pageCache.get("/menu");
+        assertNotNull(page);
+        assertEquals("text/html;charset=UTF-8", page.getContentType());
+        assertArrayEquals(body, page.getBody());
+        assertEquals(0x1f, page.getGzipped()[0]);
+        assertEquals(1, meterRegistry.counter("page.cache", "result", "hit").count());
+    }
+
+    @Test
+    public void catalogChangeDropsPages() {
+        long version = pageCache.getVersion();
+        pageCache.put("/menu", "text/html", new byte[]{1}, version);
+
+        pageCache.onCatalogChanged(new CatalogChangedEvent());
+
+        assertNull(pageCache.get("/menu"));
+        assertEquals(0, pageCache.size());
+    }
+
+    @Test
+    public void pageRenderedBeforeCatalogChangeIsNotStored() {
+        long version = pageCache.getVersion();
+        pageCache.onCatalogChanged(new CatalogChangedEvent());
+
+        pageCache.put("/menu", "text/html", new byte[]{1}, version);
+
+        assertNull(pageCache.get("/menu"));
+    }
+
+    @Test
+    public void pagesExpire() {
+        pageCache.put("/", "text/html", new byte[]{1}, pageCache.getVersion());
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertNull(pageCache.get("/"));
+        assertEquals(0, pageCache.size());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        for (int i = 0; i < 5; i++) {
+            pageCache.put("/product/" + i, "text/html", new byte[]{1}, pageCache.getVersion());
+        }
+
+        assertTrue(pageCache.size() <= 2);
+        assertNotNull(pageCache.get("/product/4"));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionAttributeCodecTest {
+    private final SessionAttributeCodec codec = new SessionAttributeCodec(512, getClass().getClassLoader());
+
+    @Test
+    public void smallAttributeIsStoredAsIs() {
+        byte[] bytes = codec.serialize("/order");
+
+        assertArrayEquals(new SerializingConverter().convert("/order"), bytes);
+        assertEquals("/order", codec.deserialize(bytes));
+    }
+
+    @Test
+    public void largeAttributeIsDeflated() {
+        User user = user();
+        byte[] plain = new SerializingConverter().convert(user);
+
+        byte[] bytes = codec.serialize(user);
+
+        assertTrue(bytes.length < plain.length / 2);
+        User restored = (User) codec.deserialize(bytes);
+        assertEquals(user, restored);
+        assertEquals(20, restored.getCandleList().size());
+    }
+
+    @Test
+    public void uncompressedAttributeIsRead() {
+        User user = user();
+
+        assertEquals(user, codec.deserialize(new SerializingConverter().convert(user)));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setRoles(Collections.singleton(Role.ADMIN));
+        user.setCandleList(new ArrayList<>());
+        for (long i = 0; i < 20; i++) {
+            Candle candle = new Candle();
+            candle.setId(i);
+            candle.setCandleTitle("Candle " + i);
+            candle.setDescription("Soy candle with the fragrance of the sea");
+            user.getCandleList().add(candle);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionCleanupJobTest {
+    @Test
+    public void removesBatchesUntilBatchIsNotFull() {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.update(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(),
+                ArgumentMatchers.eq(100))).thenReturn(100, 100, 42);
+
+        assertEquals(242, new SessionCleanupJob(jdbcTemplate, 100).cleanUp());
+        Mockito.verify(jdbcTemplate, Mockito.times(3)).update(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.eq(100));
+    }
+}
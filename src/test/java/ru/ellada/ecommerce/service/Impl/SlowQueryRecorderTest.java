@@ -0,0 +1,55 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryRecorderTest {
+    private final SlowQueryRecorder recorder = new SlowQueryRecorder(100, 2,
+            Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+    @Test
+    public void fastStatementsAreNotRecorded() {
+        recorder.afterExecute("select 1", Collections.emptyList(), TimeUnit.MILLISECONDS.toNanos(99));
+
+        assertTrue(recorder.getSlowQueries().isEmpty());
+    }
+
+    @Test
+    public void slowStatementIsRecordedWithShapeAndCallSite() {
+        recorder.afterExecute("select * from usr where username = ? and active = ?", Arrays.asList("String", "Boolean"),
+                TimeUnit.MILLISECONDS.toNanos(150));
+
+        List<SlowQueryRecorder.SlowQuery> queries = recorder.getSlowQueries();
+        assertEquals(1, queries.size());
+        SlowQueryRecorder.SlowQuery query = queries.get(0);
+        assertEquals("select * from usr where username = ? and active = ?", query.getSql());
+        assertEquals(Arrays.asList("String", "Boolean"), query.getParameterTypes());
+        assertEquals(150, query.getDurationMs());
+        assertEquals(Instant.EPOCH, query.getExecutedAt());
+        assertTrue(query.getCallSite().startsWith(SlowQueryRecorderTest.class.getName()), query.getCallSite());
+    }
+
+    @Test
+    public void oldestStatementsAreOverwritten() {
+        for (int i = 1; i <= 3; i++) {
+            recorder.afterExecute("select " + i, Collections.emptyList(), TimeUnit.MILLISECONDS.toNanos(100 * i));
+        }
+
+        List<SlowQueryRecorder.SlowQuery> queries = recorder.getSlowQueries();
+        assertEquals(2, queries.size());
+        assertEquals("select 3", queries.get(0).getSql());
+        assertEquals("select 2", queries.get(1).getSql());
+
+        recorder.clear();
+        assertTrue(recorder.getSlowQueries().isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package ru.ellada.ecommerce.service.Impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.ellada.ecommerce.domain.Candle;
+import ru.ellada.ecommerce.domain.Role;
+import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.service.UserChangedEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, User> loader = username -> {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.ru");
+        user.setRoles(new HashSet<>(Set.of(Role.USER)));
+        user.setCandleList(new ArrayList<>());
+        return user;
+    };
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void repeatedLoginsHitCache() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 10);
+
+        User first = cache.get("admin", loader);
+        User second = cache.get("admin", loader);
+
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("user.details.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("user.details.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void cachedUserIsNotShared() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 10);
+
+        User first = cache.get("admin", loader);
+        first.getCandleList().add(new Candle());
+        first.getRoles().add(Role.ADMIN);
+        first.setEmail("changed@test.ru");
+        User second = cache.get("admin", loader);
+        second.getCandleList().add(new Candle());
+        User third = cache.get("admin", loader);
+
+        assertTrue(third.getCandleList().isEmpty());
+        assertEquals(Set.of(Role.USER), third.getRoles());
+        assertEquals("admin@test.ru", third.getEmail());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void changedUserIsReloaded() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 10);
+        cache.get("admin", loader);
+        cache.get("user", loader);
+
+        cache.onUserChanged(new UserChangedEvent("admin", null));
+        cache.get("admin", loader);
+        cache.get("user", loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void expiredUserIsReloaded() {
+        MutableClock clock = new MutableClock(Instant.EPOCH);
+        UserDetailsCache cache = cache(clock, 10);
+        cache.get("admin", loader);
+
+        clock.advance(Duration.ofSeconds(61));
+        cache.get("admin", loader);
+        cache.get("admin", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void unknownUserIsNotCached() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 10);
+
+        assertNull(cache.get("ghost", username -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 2);
+
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("c", loader);
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void userLoadedDuringInvalidationIsNotCached() {
+        UserDetailsCache cache = cache(Clock.systemUTC(), 10);
+
+        cache.get("admin", username -> {
+            cache.onUserChanged(new UserChangedEvent(username));
+            return loader.apply(username);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    private UserDetailsCache cache(Clock clock, int maxSize) {
+        return new UserDetailsCache(Duration.ofSeconds(60), maxSize, meterRegistry, clock);
+    }
+}
@@ -1,8 +1,12 @@
 package ru.ellada.ecommerce.service.Impl;
 
+import ru.ellada.ecommerce.EmbeddedDatabase;
+import ru.ellada.ecommerce.domain.OutboxEventType;
 import ru.ellada.ecommerce.domain.Role;
 import ru.ellada.ecommerce.domain.User;
+import ru.ellada.ecommerce.domain.dto.UserSummaryDto;
 import ru.ellada.ecommerce.repos.UserRepository;
+import ru.ellada.ecommerce.service.OutboxService;
 import ru.ellada.ecommerce.service.UserService;
 import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.Test;
@@ -11,9 +15,16 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +42,14 @@ class UserServiceImplTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    @MockBean
+    private OutboxService outboxService;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
     @Test
     public void addUser() {
         User user = new User();
@@ -44,11 +63,32 @@ class UserServiceImplTest {
         assertTrue(CoreMatchers.is(user.getRoles()).matches(Collections.singleton(Role.USER)));
 
         Mockito.verify(userRepository, Mockito.times(1)).save(user);
+        Mockito.verify(outboxService, Mockito.times(1))
+                .publish(ArgumentMatchers.eq(OutboxEventType.USER_REGISTERED), ArgumentMatchers.any());
+        Mockito.verify(mailSender, Mockito.times(0))
+                .send(
+                        ArgumentMatchers.anyString(),
+                        ArgumentMatchers.anyString(),
+                        ArgumentMatchers.anyString(),
+                        ArgumentMatchers.anyString());
+    }
+
+    @Test
+    public void sendMessage() {
+        User user = new User();
+
+        user.setUsername("Bob");
+        user.setEmail("testMail@test.com");
+        user.setActivationCode("activationCode");
+
+        userService.sendMessage(user, "outbox-1");
+
         Mockito.verify(mailSender, Mockito.times(1))
                 .send(
+                        ArgumentMatchers.eq("outbox-1"),
                         ArgumentMatchers.eq(user.getEmail()),
                         ArgumentMatchers.eq("Activation code"),
-                        ArgumentMatchers.anyString());
+                        ArgumentMatchers.contains("activationCode"));
     }
 
     @Test
@@ -66,8 +106,10 @@ class UserServiceImplTest {
         assertFalse(isUserCreated);
 
         Mockito.verify(userRepository, Mockito.times(0)).save(ArgumentMatchers.any(User.class));
+        Mockito.verify(outboxService, Mockito.times(0)).publish(ArgumentMatchers.any(), ArgumentMatchers.any());
         Mockito.verify(mailSender, Mockito.times(0))
                 .send(
+                        ArgumentMatchers.anyString(),
                         ArgumentMatchers.anyString(),
                         ArgumentMatchers.anyString(),
                         ArgumentMatchers.anyString());
@@ -99,4 +141,20 @@ class UserServiceImplTest {
 
         Mockito.verify(userRepository, Mockito.times(0)).save(ArgumentMatchers.any(User.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllBySearchPrefix() {
+        PageRequest pageable = PageRequest.of(0, 20);
+        UserSummaryDto admin = new UserSummaryDto(1L, "admin", "admin@test.ru", true);
+        Mockito.when(userRepository.searchSummaries("ad\\_m%", pageable))
+                .thenReturn(new PageImpl<>(List.of(admin), pageable, 1));
+        Mockito.when(userRepository.findRolesByUserIds(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, Role.ADMIN}, new Object[]{1L, Role.USER}));
+
+        Page<UserSummaryDto> page = userService.findAll(" AD_m ", pageable);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(Set.of(Role.ADMIN, Role.USER), page.getContent().get(0).getRoles());
+        Mockito.verify(userRepository, Mockito.never()).findAll();
+    }
+}